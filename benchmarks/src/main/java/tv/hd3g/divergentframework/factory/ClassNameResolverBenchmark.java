@@ -0,0 +1,122 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.Plain;
+
+/**
+ * ClassNameResolver against the previous Factory.getClassByName path (HashMap and HashSet, loads under a lock), in this
+ * package for use the package private API. Run with -t 4 for the concurrent reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassNameResolverBenchmark {
+	
+	private static final String PRESENT = Plain.class.getName();
+	private static final String ABSENT = "tv.hd3g.NotExists";
+	
+	private ClassNameResolver resolver;
+	private ClassLoader class_loader;
+	
+	private final Object lock = new Object();
+	private HashMap<String, Class<?>> class_names;
+	private HashSet<String> absent_class_names;
+	
+	@Setup
+	public void setup() {
+		resolver = new ClassNameResolver();
+		resolver.setAbsentPolicy(1, TimeUnit.HOURS, ClassNameResolver.DEFAULT_MAX_ABSENT);
+		class_loader = Factory.class.getClassLoader();
+		class_names = new HashMap<>();
+		absent_class_names = new HashSet<>();
+		
+		resolverHit();
+		resolverMiss();
+		legacyHit();
+		legacyMiss();
+	}
+	
+	/**
+	 * The previous Factory.getClassByName.
+	 */
+	private Class<?> legacyGetClassByName(String class_name) {
+		if (absent_class_names.contains(class_name)) {
+			return null;
+		}
+		if (class_names.containsKey(class_name)) {
+			return class_names.get(class_name);
+		}
+		synchronized (lock) {
+			try {
+				Class<?> checked = Class.forName(class_name);
+				class_names.put(class_name, checked);
+				return checked;
+			} catch (ClassNotFoundException e) {
+				absent_class_names.add(class_name);
+				return null;
+			}
+		}
+	}
+	
+	@Benchmark
+	public Class<?> legacyHit() {
+		return legacyGetClassByName(PRESENT);
+	}
+	
+	@Benchmark
+	public Class<?> legacyMiss() {
+		return legacyGetClassByName(ABSENT);
+	}
+	
+	@Benchmark
+	public Class<?> resolverHit() {
+		return resolver.resolve(PRESENT, class_loader);
+	}
+	
+	@Benchmark
+	public Class<?> resolverMiss() {
+		return resolver.resolve(ABSENT, class_loader);
+	}
+	
+	/**
+	 * Without any cache.
+	 */
+	@Benchmark
+	public Class<?> classForName() throws ClassNotFoundException {
+		return Class.forName(PRESENT, true, class_loader);
+	}
+	
+}
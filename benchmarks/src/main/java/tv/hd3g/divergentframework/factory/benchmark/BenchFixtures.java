@@ -0,0 +1,89 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.util.ArrayList;
+
+import tv.hd3g.divergentframework.factory.SingleInstance;
+import tv.hd3g.divergentframework.factory.configuration.annotations.TargetGenericClassType;
+
+/**
+ * Classes created by the benchmarks.
+ */
+public class BenchFixtures {
+	
+	public static class Plain {
+	}
+	
+	@SingleInstance
+	public static class Single {
+	}
+	
+	public static class Garage {
+		final Plain plain;
+		final Single single;
+		
+		public Garage(Plain plain, Single single) {
+			this.plain = plain;
+			this.single = single;
+		}
+	}
+	
+	public interface Service {
+		int call();
+	}
+	
+	public static class ServiceImpl implements Service {
+		public int call() {
+			return 1;
+		}
+	}
+	
+	public enum WheelType {
+		tractor, formula1, suv, sedan, truck;
+	}
+	
+	public static class Wheel {
+		public int size;
+		public WheelType type;
+	}
+	
+	public static class BenchCar {
+		private String color;
+		private float size;
+		@TargetGenericClassType(String.class)
+		private ArrayList<String> passager_names;
+		private Wheel default_wheel;
+		
+		public String getColor() {
+			return color;
+		}
+		
+		public float getSize() {
+			return size;
+		}
+		
+		public ArrayList<String> getPassagerNames() {
+			return passager_names;
+		}
+		
+		public Wheel getDefaultWheel() {
+			return default_wheel;
+		}
+	}
+	
+}
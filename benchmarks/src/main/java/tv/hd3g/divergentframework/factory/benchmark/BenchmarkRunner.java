@@ -0,0 +1,53 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Like org.openjdk.jmh.Main, but the results are always written in JSON, by default in target/jmh-result.json.
+ * All JMH command line options can be used, like a benchmark name filter, or "-rff other-file.json".
+ */
+public class BenchmarkRunner {
+	
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cli_options = new CommandLineOptions(args);
+		if (cli_options.shouldHelp()) {
+			cli_options.showHelp();
+			return;
+		} else if (cli_options.shouldList()) {
+			new Runner(cli_options).list();
+			return;
+		}
+		
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cli_options).resultFormat(ResultFormatType.JSON);
+		if (cli_options.getResult().hasValue() == false) {
+			File result_file = new File("target", "jmh-result.json");
+			result_file.getParentFile().mkdirs();
+			options.result(result_file.getPath());
+		}
+		
+		new Runner(options.build()).run();
+	}
+	
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+
+import tv.hd3g.divergentframework.factory.Factory;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.BenchCar;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.Garage;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.Plain;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.Service;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.Single;
+
+/**
+ * Factory.create with each kind of class, and class name resolution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactoryBenchmark {
+	
+	private Factory factory;
+	private File conf_file;
+	
+	/**
+	 * A new Factory by iteration, because the configured instances are kept by the Factory.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() throws Exception {
+		factory = new Factory();
+		factory.getBindMap().setProperty(Service.class.getName(), BenchFixtures.ServiceImpl.class.getName());
+		
+		JsonObject conf_root = new JsonObject();
+		conf_root.add(BenchCar.class.getName(), new SyntheticData().carConfiguration(8));
+		conf_file = File.createTempFile("bench-factory", ".json");
+		FileUtils.write(conf_file, conf_root.toString(), StandardCharsets.UTF_8);
+		factory.getConfigurator().addConfigurationFilesToInternalList(conf_file).scanImportedFiles();
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDown() throws Exception {
+		FileUtils.forceDelete(conf_file);
+	}
+	
+	@Benchmark
+	public Plain createPlain() throws ReflectiveOperationException {
+		return factory.create(Plain.class);
+	}
+	
+	@Benchmark
+	public Single createSingleInstance() throws ReflectiveOperationException {
+		return factory.create(Single.class);
+	}
+	
+	@Benchmark
+	public Garage createWithConstructorInjection() throws ReflectiveOperationException {
+		return factory.create(Garage.class);
+	}
+	
+	@Benchmark
+	public BenchCar createConfigured() throws ReflectiveOperationException {
+		return factory.create(BenchCar.class);
+	}
+	
+	@Benchmark
+	public Service createInterfaceBound() throws ReflectiveOperationException {
+		return factory.create(Service.class);
+	}
+	
+	@Benchmark
+	public Class<?> getClassByNameHit() {
+		return factory.getClassByName(Plain.class.getName());
+	}
+	
+	@Benchmark
+	public Class<?> getClassByNameMiss() {
+		return factory.getClassByName("tv.hd3g.NotExists");
+	}
+	
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.awt.Color;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.internet.InternetAddress;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import tv.hd3g.divergentframework.factory.Factory;
+
+/**
+ * Serialization and deserialization with each GsonKit built-in adapter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonKitBenchmark {
+	
+	@Param({ "JsonArray", "JsonObject", "InetAddress", "InetSocketAddress", "URL", "File", "Path", "Date", "Properties", "InternetAddress", "Locale", "Color", "Class" })
+	public String adapter;
+	
+	private Gson gson;
+	private Object value;
+	private Class<?> value_type;
+	private String json;
+	
+	@Setup
+	public void setup() throws Exception {
+		gson = new Factory().createGsonKit().getGson();
+		SyntheticData data = new SyntheticData();
+		
+		switch (adapter) {
+		case "JsonArray":
+			JsonArray array = new JsonArray();
+			for (int pos = 0; pos < 16; pos++) {
+				array.add(data.word(10));
+			}
+			value = array;
+			break;
+		case "JsonObject":
+			value = data.jsonTree(2, 4);
+			break;
+		case "InetAddress":
+			value = InetAddress.getByName("192.168.1.10");
+			break;
+		case "InetSocketAddress":
+			value = new InetSocketAddress(InetAddress.getByName("192.168.1.10"), 8080);
+			break;
+		case "URL":
+			value = new URL("https://hd3g.tv/path/to/" + data.word(10) + "?q=1");
+			break;
+		case "File":
+			value = new File("/tmp/" + data.word(10) + "/" + data.word(10) + ".txt");
+			break;
+		case "Path":
+			value = Paths.get("/tmp", data.word(10), data.word(10) + ".txt");
+			break;
+		case "Date":
+			value = new Date(1_500_000_000_000l);
+			break;
+		case "Properties":
+			Properties properties = new Properties();
+			for (int pos = 0; pos < 16; pos++) {
+				properties.setProperty(data.word(10), data.word(20));
+			}
+			value = properties;
+			break;
+		case "InternetAddress":
+			value = new InternetAddress(data.word(10) + "@hd3g.tv", "Some Name");
+			break;
+		case "Locale":
+			value = Locale.CANADA_FRENCH;
+			break;
+		case "Color":
+			value = new Color(10, 20, 30, 40);
+			break;
+		case "Class":
+			value = GsonKitBenchmark.class;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown adapter: " + adapter);
+		}
+		
+		value_type = value.getClass();
+		if (value instanceof InetAddress) {
+			value_type = InetAddress.class;
+		} else if (value instanceof java.nio.file.Path) {
+			value_type = java.nio.file.Path.class;
+		} else if (value instanceof Class) {
+			value_type = Class.class;
+		}
+		json = gson.toJson(value, value_type);
+	}
+	
+	@Benchmark
+	public String serialize() {
+		return gson.toJson(value, value_type);
+	}
+	
+	@Benchmark
+	public Object deserialize() {
+		return gson.fromJson(json, value_type);
+	}
+	
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+
+import tv.hd3g.divergentframework.factory.GsonKit;
+import tv.hd3g.divergentframework.factory.GsonKit.KeyValueNullContentMergeBehavior;
+
+/**
+ * GsonKit.jsonMerge over large trees (depth 6 is about 100k nodes). jsonMerge changes the current tree, so each call merges
+ * in a copy: deepCopyOnly gives the copy cost to subtract. jsonCompareMerge is the previous jsonMerge, via jsonCompare.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonMergeBenchmark {
+	
+	@Param({ "2", "4", "6" })
+	public int depth;
+	
+	@Param({ "8" })
+	public int width;
+	
+	private JsonObject current;
+	private JsonObject newer;
+	
+	@Setup
+	public void setup() {
+		SyntheticData data = new SyntheticData();
+		current = data.jsonTree(depth, width);
+		newer = data.jsonChangedTree(current, 0.1d);
+	}
+	
+	@Benchmark
+	public JsonObject deepCopyOnly() {
+		return current.deepCopy();
+	}
+	
+	@Benchmark
+	public JsonObject jsonMerge() {
+		JsonObject result = current.deepCopy();
+		GsonKit.jsonMerge(result, newer, KeyValueNullContentMergeBehavior.KEEP);
+		return result;
+	}
+	
+	@Benchmark
+	public JsonObject jsonCompareMerge() {
+		JsonObject result = current.deepCopy();
+		GsonKit.jsonCompare(result, newer, (relative_to, k_to_add, v) -> {
+			relative_to.add(k_to_add, v);
+		}, (relative_to, k_to_remove, v) -> {
+			relative_to.add(k_to_remove, v);
+		}, (relative_to, nothing, content_to_add) -> {
+			relative_to.add(content_to_add);
+		}, (relative_to, pos, content_to_remove) -> {
+			relative_to.remove(pos);
+		});
+		return result;
+	}
+	
+}
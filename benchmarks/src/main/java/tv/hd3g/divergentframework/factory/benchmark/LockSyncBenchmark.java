@@ -0,0 +1,92 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tv.hd3g.divergentframework.factory.LockSync;
+
+/**
+ * LockSync with read only, mostly read, and balanced read/write thread mixes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class LockSyncBenchmark {
+	
+	private final LockSync lock = new LockSync();
+	private long value;
+	
+	private long read() {
+		return lock.syncRead(() -> value);
+	}
+	
+	private long write() {
+		return lock.syncWrite(() -> ++value);
+	}
+	
+	@Benchmark
+	@Group("readOnly")
+	@GroupThreads(4)
+	public long readOnly() {
+		return read();
+	}
+	
+	@Benchmark
+	@Group("mostlyRead")
+	@GroupThreads(3)
+	public long mostlyReadRead() {
+		return read();
+	}
+	
+	@Benchmark
+	@Group("mostlyRead")
+	@GroupThreads(1)
+	public long mostlyReadWrite() {
+		return write();
+	}
+	
+	@Benchmark
+	@Group("balanced")
+	@GroupThreads(2)
+	public long balancedRead() {
+		return read();
+	}
+	
+	@Benchmark
+	@Group("balanced")
+	@GroupThreads(2)
+	public long balancedWrite() {
+		return write();
+	}
+	
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Reproducible data generators for the benchmarks: same seed, same data.
+ */
+public class SyntheticData {
+	
+	private final Random random;
+	
+	public SyntheticData(long seed) {
+		random = new Random(seed);
+	}
+	
+	public SyntheticData() {
+		this(0);
+	}
+	
+	public String word(int max_len) {
+		int len = 1 + random.nextInt(max_len);
+		StringBuilder sb = new StringBuilder(len);
+		for (int pos = 0; pos < len; pos++) {
+			sb.append((char) ('a' + random.nextInt(26)));
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * @param depth 0 for a flat object
+	 * @param width entries by object; the last levels have some arrays, numbers and strings.
+	 */
+	public JsonObject jsonTree(int depth, int width) {
+		JsonObject result = new JsonObject();
+		for (int pos = 0; pos < width; pos++) {
+			String key = "k" + pos;
+			if (depth > 0 && pos % 4 != 3) {
+				result.add(key, jsonTree(depth - 1, width));
+			} else {
+				result.add(key, jsonLeaf());
+			}
+		}
+		return result;
+	}
+	
+	private JsonElement jsonLeaf() {
+		switch (random.nextInt(3)) {
+		case 0:
+			JsonArray array = new JsonArray();
+			for (int pos = 0; pos < 4; pos++) {
+				array.add(word(8));
+			}
+			return array;
+		case 1:
+			JsonObject number = new JsonObject();
+			number.addProperty("n", random.nextInt(1000));
+			return number.get("n");
+		default:
+			JsonObject text = new JsonObject();
+			text.addProperty("s", word(16));
+			return text.get("s");
+		}
+	}
+	
+	/**
+	 * A copy of tree with changed values, and some removed and added keys.
+	 */
+	public JsonObject jsonChangedTree(JsonObject tree, double change_ratio) {
+		JsonObject result = new JsonObject();
+		tree.entrySet().forEach(entry -> {
+			if (random.nextDouble() > change_ratio) {
+				if (entry.getValue().isJsonObject()) {
+					result.add(entry.getKey(), jsonChangedTree(entry.getValue().getAsJsonObject(), change_ratio));
+				} else {
+					result.add(entry.getKey(), entry.getValue().deepCopy());
+				}
+			} else if (random.nextBoolean()) {
+				result.add(entry.getKey(), jsonLeaf());
+			}
+		});
+		if (random.nextDouble() < change_ratio) {
+			result.add(word(8), jsonLeaf());
+		}
+		return result;
+	}
+	
+	/**
+	 * @return BenchCar configuration
+	 */
+	public JsonObject carConfiguration(int passager_count) {
+		JsonObject conf_tree = new JsonObject();
+		conf_tree.addProperty("color", word(10));
+		conf_tree.addProperty("size", random.nextFloat() * 10f);
+		JsonArray names = new JsonArray();
+		for (int pos = 0; pos < passager_count; pos++) {
+			names.add(word(12));
+		}
+		conf_tree.add("passager_names", names);
+		JsonObject wheel = new JsonObject();
+		wheel.addProperty("size", 1 + random.nextInt(30));
+		wheel.addProperty("type", "sedan");
+		conf_tree.add("default_wheel", wheel);
+		return conf_tree;
+	}
+	
+	/**
+	 * @return a new temp directory with file_count small files, in sub directories of 100 files.
+	 */
+	public File fileTree(int file_count) throws IOException {
+		File root = Files.createTempDirectory("bench-watchfolder").toFile().getCanonicalFile();
+		for (int pos = 0; pos < file_count; pos++) {
+			File dir = new File(root, "dir" + pos / 100);
+			File file = new File(dir, "file" + pos + ".txt");
+			FileUtils.forceMkdirParent(file);
+			FileUtils.write(file, word(64), StandardCharsets.UTF_8);
+		}
+		return root;
+	}
+	
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.benchmark;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tv.hd3g.divergentframework.factory.watchfolder.EventKind;
+import tv.hd3g.divergentframework.factory.watchfolder.WatchFolder;
+
+/**
+ * Time for a new WatchFolder to scan a synthetic tree and to dispatch a detection event for each file.
+ * All the WatchFolders share the same executors (close() don't stop them), created and shutdown by trial.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WatchFolderBenchmark {
+	
+	@Param({ "100", "1000", "10000" })
+	public int file_count;
+	
+	private File tree;
+	private ThreadPoolExecutor executor;
+	private ScheduledExecutorService sch_service;
+	private WatchFolder watchfolder;
+	
+	@Setup(Level.Trial)
+	public void createTree() throws Exception {
+		tree = new SyntheticData().fileTree(file_count);
+		executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+			Thread t = new Thread(r);
+			t.setDaemon(true);
+			t.setName("WatchfolderFileEvent");
+			return t;
+		});
+		sch_service = Executors.newScheduledThreadPool(1, r -> {
+			Thread t = new Thread(r);
+			t.setDaemon(true);
+			t.setName("WatchfolderRegularEvent");
+			return t;
+		});
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteTree() throws Exception {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		sch_service.shutdown();
+		sch_service.awaitTermination(10, TimeUnit.SECONDS);
+		FileUtils.forceDelete(tree);
+	}
+	
+	@TearDown(Level.Invocation)
+	public void closeWatchfolder() {
+		watchfolder.close();
+	}
+	
+	@Benchmark
+	public WatchFolder firstScan() throws Exception {
+		CountDownLatch detected = new CountDownLatch(file_count);
+		/**
+		 * The executors created by the constructor are replaced before any task is submitted, so they never start a thread.
+		 */
+		watchfolder = new WatchFolder().setExecutor(executor).setScheduledService(sch_service).setObservedDirectory(tree).setFileDetectionTime(1, TimeUnit.MILLISECONDS).setScanPeriod(1, TimeUnit.MILLISECONDS);
+		watchfolder.registerCallback((root, activity_on_file, kind, detected_by) -> {
+			if (kind != EventKind.DELETE && activity_on_file.isFile()) {
+				detected.countDown();
+			}
+		});
+		detected.await();
+		return watchfolder;
+	}
+	
+}
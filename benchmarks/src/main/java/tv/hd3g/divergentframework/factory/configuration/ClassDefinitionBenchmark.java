@@ -0,0 +1,86 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+
+import tv.hd3g.divergentframework.factory.Factory;
+import tv.hd3g.divergentframework.factory.benchmark.BenchFixtures.BenchCar;
+import tv.hd3g.divergentframework.factory.benchmark.SyntheticData;
+
+/**
+ * ClassDefinition.setObjectConfiguration (via ClassConfigurator, like a configured instance creation), in this package
+ * for use the package private API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassDefinitionBenchmark {
+	
+	@Param({ "0", "8", "64" })
+	public int passager_count;
+	
+	private ClassConfigurator class_configurator;
+	private ClassDefinition class_definition;
+	private JsonObject configuration;
+	
+	@Setup
+	public void setup() {
+		Factory factory = new Factory();
+		class_configurator = new ClassConfigurator(factory.createGsonKit(), c -> {
+			try {
+				return factory.create(c);
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		class_definition = class_configurator.getClassDefinitionFrom(BenchCar.class);
+		configuration = new SyntheticData().carConfiguration(passager_count);
+	}
+	
+	@Benchmark
+	public BenchCar setObjectConfiguration() {
+		BenchCar car = new BenchCar();
+		class_definition.setObjectConfiguration(car, configuration);
+		return car;
+	}
+	
+	@Benchmark
+	public BenchCar configureNewObjectWithJson() {
+		BenchCar car = new BenchCar();
+		class_configurator.configureNewObjectWithJson(BenchCar.class, car, configuration);
+		return car;
+	}
+	
+}
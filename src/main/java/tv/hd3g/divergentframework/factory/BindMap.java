@@ -0,0 +1,230 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Properties who count its changes, for let Factory to know when it must rebuild its BindingTable.
+ * Properties.load() and setProperty() use put(). The changes via keySet(), values() and entrySet() are counted too.
+ * A child BindMap reads its parent values as defaults, and its version changes with its parent changes.
+ */
+@SuppressWarnings("serial")
+class BindMap extends Properties {
+	
+	private final AtomicLong version;
+	private final BindMap parent;
+	
+	BindMap() {
+		version = new AtomicLong(0);
+		parent = null;
+	}
+	
+	BindMap(BindMap parent) {
+		super(parent);
+		version = new AtomicLong(0);
+		this.parent = parent;
+	}
+	
+	/**
+	 * @return the sum of this and parent changes, so it changes if one of them changes.
+	 */
+	long getVersion() {
+		if (parent == null) {
+			return version.get();
+		}
+		return version.get() + parent.getVersion();
+	}
+	
+	private <T> T changed(T result) {
+		version.incrementAndGet();
+		return result;
+	}
+	
+	public synchronized Object put(Object key, Object value) {
+		return changed(super.put(key, value));
+	}
+	
+	public synchronized void putAll(Map<?, ?> t) {
+		super.putAll(t);
+		changed(null);
+	}
+	
+	public synchronized Object putIfAbsent(Object key, Object value) {
+		return changed(super.putIfAbsent(key, value));
+	}
+	
+	public synchronized Object remove(Object key) {
+		return changed(super.remove(key));
+	}
+	
+	public synchronized boolean remove(Object key, Object value) {
+		return changed(super.remove(key, value));
+	}
+	
+	public synchronized void clear() {
+		super.clear();
+		changed(null);
+	}
+	
+	public synchronized Object replace(Object key, Object value) {
+		return changed(super.replace(key, value));
+	}
+	
+	public synchronized boolean replace(Object key, Object old_value, Object new_value) {
+		return changed(super.replace(key, old_value, new_value));
+	}
+	
+	public synchronized void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+		super.replaceAll(function);
+		changed(null);
+	}
+	
+	public synchronized Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remapping_function) {
+		return changed(super.compute(key, remapping_function));
+	}
+	
+	public synchronized Object computeIfAbsent(Object key, Function<? super Object, ?> mapping_function) {
+		return changed(super.computeIfAbsent(key, mapping_function));
+	}
+	
+	public synchronized Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ?> remapping_function) {
+		return changed(super.computeIfPresent(key, remapping_function));
+	}
+	
+	public synchronized Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ?> remapping_function) {
+		return changed(super.merge(key, value, remapping_function));
+	}
+	
+	public Set<Object> keySet() {
+		return new CountedSet<>(super.keySet(), UnaryOperator.identity());
+	}
+	
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return new CountedSet<>(super.entrySet(), CountedEntry::new);
+	}
+	
+	public Collection<Object> values() {
+		return new CountedCollection<>(super.values(), UnaryOperator.identity());
+	}
+	
+	/**
+	 * All the removes (remove, removeAll, retainAll, removeIf, clear) are done by the iterator.
+	 */
+	private class CountedCollection<E> extends AbstractCollection<E> {
+		private final Collection<E> view;
+		private final UnaryOperator<E> wrapper;
+		
+		CountedCollection(Collection<E> view, UnaryOperator<E> wrapper) {
+			this.view = view;
+			this.wrapper = wrapper;
+		}
+		
+		public Iterator<E> iterator() {
+			Iterator<E> iterator = view.iterator();
+			return new Iterator<E>() {
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+				
+				public E next() {
+					return wrapper.apply(iterator.next());
+				}
+				
+				public void remove() {
+					iterator.remove();
+					changed(null);
+				}
+			};
+		}
+		
+		public int size() {
+			return view.size();
+		}
+		
+		public boolean contains(Object o) {
+			return view.contains(o);
+		}
+	}
+	
+	private class CountedSet<E> extends CountedCollection<E> implements Set<E> {
+		
+		CountedSet(Set<E> view, UnaryOperator<E> wrapper) {
+			super(view, wrapper);
+		}
+		
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			} else if (o instanceof Set == false) {
+				return false;
+			}
+			Set<?> other = (Set<?>) o;
+			return other.size() == size() && containsAll(other);
+		}
+		
+		public int hashCode() {
+			int h = 0;
+			for (E item : this) {
+				h += item == null ? 0 : item.hashCode();
+			}
+			return h;
+		}
+	}
+	
+	private class CountedEntry implements Map.Entry<Object, Object> {
+		private final Map.Entry<Object, Object> entry;
+		
+		CountedEntry(Map.Entry<Object, Object> entry) {
+			this.entry = entry;
+		}
+		
+		public Object getKey() {
+			return entry.getKey();
+		}
+		
+		public Object getValue() {
+			return entry.getValue();
+		}
+		
+		public Object setValue(Object value) {
+			return changed(entry.setValue(value));
+		}
+		
+		public boolean equals(Object o) {
+			return entry.equals(o);
+		}
+		
+		public int hashCode() {
+			return entry.hashCode();
+		}
+		
+		public String toString() {
+			return entry.toString();
+		}
+	}
+	
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Immutable view of a bind map: interface name -> java class, JS file or JS URL.
+ * Each binding is resolved on its first lookup (like the class loading and the file system checks), and kept for this table.
+ * UNRESOLVED bindings are not kept, they are resolved again on the next lookup (like for a JS file created later).
+ */
+class BindingTable {
+	private static Logger log = Logger.getLogger(BindingTable.class);
+	
+	enum Kind {
+		JAVA_CLASS, JS_FILE, JS_URL, UNRESOLVED;
+	}
+	
+	static class Binding {
+		final String bind_to;
+		final Kind kind;
+		final Class<?> implementation;
+		final File js_file;
+		final URL js_url;
+		
+		private Binding(String bind_to, Kind kind, Class<?> implementation, File js_file, URL js_url) {
+			this.bind_to = bind_to;
+			this.kind = kind;
+			this.implementation = implementation;
+			this.js_file = js_file;
+			this.js_url = js_url;
+		}
+		
+		public String toString() {
+			return kind + " " + bind_to;
+		}
+	}
+	
+	final long version;
+	private final Map<String, String> bind_map;
+	private final Function<String, Class<?>> classByName;
+	private final ConcurrentHashMap<String, Binding> bindings;
+	
+	/**
+	 * @param version the bind map version before the read of bind_map
+	 */
+	BindingTable(long version, Map<String, String> bind_map, Function<String, Class<?>> classByName) {
+		this.version = version;
+		this.bind_map = Collections.unmodifiableMap(new HashMap<>(bind_map));
+		this.classByName = classByName;
+		bindings = new ConcurrentHashMap<>();
+		
+		if (log.isDebugEnabled()) {
+			log.debug("Build binding table (v" + version + "): " + this.bind_map);
+		}
+	}
+	
+	private static Binding resolve(String bind_to, Function<String, Class<?>> classByName) {
+		File source_file = new File(bind_to);
+		if (source_file.exists() && source_file.canRead() && source_file.isFile()) {
+			return new Binding(bind_to, Kind.JS_FILE, null, source_file, null);
+		}
+		
+		try {
+			return new Binding(bind_to, Kind.JS_URL, null, null, new URL(bind_to));
+		} catch (MalformedURLException e) {
+		}
+		
+		Class<?> implementation = classByName.apply(bind_to);
+		if (implementation == null) {
+			return new Binding(bind_to, Kind.UNRESOLVED, null, null, null);
+		}
+		return new Binding(bind_to, Kind.JAVA_CLASS, implementation, null, null);
+	}
+	
+	/**
+	 * @return null if not binded
+	 */
+	Binding get(Class<?> interface_to_instanciate) {
+		String interface_name = interface_to_instanciate.getName();
+		Binding binding = bindings.get(interface_name);
+		if (binding != null) {
+			return binding;
+		}
+		
+		String bind_to = bind_map.get(interface_name);
+		if (bind_to == null) {
+			return null;
+		}
+		binding = resolve(bind_to, classByName);
+		if (binding.kind != Kind.UNRESOLVED) {
+			bindings.putIfAbsent(interface_name, binding);
+		}
+		return binding;
+	}
+	
+}
@@ -0,0 +1,259 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What can be read from a class file, without load the class.
+ * All names are java class names (like "java.lang.Object").
+ */
+public class ClassFileInfo {
+	
+	private final String name;
+	private final String super_name;
+	private final List<String> interface_names;
+	private final List<String> annotation_names;
+	private final int access_flags;
+	
+	private ClassFileInfo(String name, String super_name, List<String> interface_names, List<String> annotation_names, int access_flags) {
+		this.name = name;
+		this.super_name = super_name;
+		this.interface_names = Collections.unmodifiableList(interface_names);
+		this.annotation_names = Collections.unmodifiableList(annotation_names);
+		this.access_flags = access_flags;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return null for java.lang.Object and module-info
+	 */
+	public String getSuperName() {
+		return super_name;
+	}
+	
+	/**
+	 * @return only the directly implemented interfaces
+	 */
+	public List<String> getInterfaceNames() {
+		return interface_names;
+	}
+	
+	/**
+	 * @return only RuntimeVisibleAnnotations (like Class.getDeclaredAnnotations)
+	 */
+	public List<String> getAnnotationNames() {
+		return annotation_names;
+	}
+	
+	public boolean isInterface() {
+		return (access_flags & Modifier.INTERFACE) != 0;
+	}
+	
+	public boolean isAbstract() {
+		return (access_flags & Modifier.ABSTRACT) != 0;
+	}
+	
+	public boolean isPublic() {
+		return (access_flags & Modifier.PUBLIC) != 0;
+	}
+	
+	/**
+	 * ACC_ANNOTATION
+	 */
+	public boolean isAnnotation() {
+		return (access_flags & 0x2000) != 0;
+	}
+	
+	public String toString() {
+		return name;
+	}
+	
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+	
+	/**
+	 * Only read the constant pool, the class header and the class attributes (fields and methods are skipped).
+	 * @throws IOException if it's not a valid class file
+	 */
+	static ClassFileInfo parse(byte[] class_file) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(class_file));
+		
+		if (in.readInt() != 0xCAFEBABE) {
+			throw new IOException("Not a class file");
+		}
+		in.readUnsignedShort();
+		in.readUnsignedShort();
+		
+		int pool_count = in.readUnsignedShort();
+		String[] utf8 = new String[pool_count];
+		int[] class_name_index = new int[pool_count];
+		
+		for (int pos = 1; pos < pool_count; pos++) {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case CONSTANT_UTF8:
+				utf8[pos] = in.readUTF();
+				break;
+			case CONSTANT_CLASS:
+				class_name_index[pos] = in.readUnsignedShort();
+				break;
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				in.skipBytes(2);
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				in.skipBytes(3);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELDREF:
+			case CONSTANT_METHODREF:
+			case CONSTANT_INTERFACE_METHODREF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				in.skipBytes(4);
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				in.skipBytes(8);
+				pos++;
+				break;
+			default:
+				throw new IOException("Invalid constant pool tag " + tag + " at " + pos);
+			}
+		}
+		
+		int access_flags = in.readUnsignedShort();
+		String name = toClassName(utf8[class_name_index[in.readUnsignedShort()]]);
+		int super_index = in.readUnsignedShort();
+		String super_name = super_index == 0 ? null : toClassName(utf8[class_name_index[super_index]]);
+		
+		int interfaces_count = in.readUnsignedShort();
+		ArrayList<String> interface_names = new ArrayList<>(interfaces_count);
+		for (int pos = 0; pos < interfaces_count; pos++) {
+			interface_names.add(toClassName(utf8[class_name_index[in.readUnsignedShort()]]));
+		}
+		
+		/**
+		 * Fields, then methods
+		 */
+		for (int members = 0; members < 2; members++) {
+			int count = in.readUnsignedShort();
+			for (int pos = 0; pos < count; pos++) {
+				in.skipBytes(6);
+				skipAttributes(in);
+			}
+		}
+		
+		ArrayList<String> annotation_names = new ArrayList<>(1);
+		int attributes_count = in.readUnsignedShort();
+		for (int pos = 0; pos < attributes_count; pos++) {
+			String attribute_name = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			if ("RuntimeVisibleAnnotations".equals(attribute_name)) {
+				int annotations_count = in.readUnsignedShort();
+				for (int a_pos = 0; a_pos < annotations_count; a_pos++) {
+					annotation_names.add(readAnnotation(in, utf8));
+				}
+			} else {
+				in.skipBytes(length);
+			}
+		}
+		
+		return new ClassFileInfo(name, super_name, interface_names, annotation_names, access_flags);
+	}
+	
+	private static String toClassName(String internal_name) {
+		return internal_name.replace('/', '.');
+	}
+	
+	private static void skipAttributes(DataInputStream in) throws IOException {
+		int count = in.readUnsignedShort();
+		for (int pos = 0; pos < count; pos++) {
+			in.skipBytes(2);
+			in.skipBytes(in.readInt());
+		}
+	}
+	
+	/**
+	 * @return annotation class name
+	 */
+	private static String readAnnotation(DataInputStream in, String[] utf8) throws IOException {
+		String descriptor = utf8[in.readUnsignedShort()];
+		int pairs_count = in.readUnsignedShort();
+		for (int pos = 0; pos < pairs_count; pos++) {
+			in.skipBytes(2);
+			skipElementValue(in, utf8);
+		}
+		/**
+		 * Like "Lpackage/Name;"
+		 */
+		return toClassName(descriptor.substring(1, descriptor.length() - 1));
+	}
+	
+	private static void skipElementValue(DataInputStream in, String[] utf8) throws IOException {
+		int tag = in.readUnsignedByte();
+		switch (tag) {
+		case 'e':
+			in.skipBytes(4);
+			break;
+		case '@':
+			readAnnotation(in, utf8);
+			break;
+		case '[':
+			int count = in.readUnsignedShort();
+			for (int pos = 0; pos < count; pos++) {
+				skipElementValue(in, utf8);
+			}
+			break;
+		default:
+			/**
+			 * B C D F I J S Z s c
+			 */
+			in.skipBytes(2);
+		}
+	}
+	
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Read class files as resources from a ClassLoader (jars or directories), without load the classes.
+ * Parsed class files are kept, for reuse super types between scans.
+ */
+class ClassFileScanner {
+	private static Logger log = Logger.getLogger(ClassFileScanner.class);
+	
+	private final ClassLoader class_loader;
+	private final ConcurrentHashMap<String, Optional<ClassFileInfo>> parsed;
+	
+	ClassFileScanner(ClassLoader class_loader) {
+		this.class_loader = class_loader;
+		if (class_loader == null) {
+			throw new NullPointerException("\"class_loader\" can't to be null");
+		}
+		parsed = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * @return null if the class file can't be found or read
+	 */
+	ClassFileInfo getInfo(String class_name) {
+		return parsed.computeIfAbsent(class_name, n -> {
+			try (InputStream in = class_loader.getResourceAsStream(n.replace('.', '/') + ".class")) {
+				if (in == null) {
+					return Optional.empty();
+				}
+				return Optional.of(ClassFileInfo.parse(in.readAllBytes()));
+			} catch (IOException e) {
+				log.warn("Can't read class file for " + n, e);
+				return Optional.empty();
+			}
+		}).orElse(null);
+	}
+	
+	/**
+	 * Parse in parallel.
+	 * @return class names (in class_names order) of the classes matching filter
+	 */
+	List<String> scan(List<String> class_names, Predicate<ClassFileInfo> filter) {
+		return class_names.parallelStream().map(this::getInfo).filter(Objects::nonNull).filter(filter).map(ClassFileInfo::getName).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Search in all super classes and all interfaces, by reading their class files.
+	 * @return false if a super type can't be read.
+	 */
+	boolean isSubTypeOf(ClassFileInfo info, String super_type_name) {
+		HashSet<String> visited = new HashSet<>();
+		return isSubTypeOf(info, super_type_name, visited);
+	}
+	
+	private boolean isSubTypeOf(ClassFileInfo info, String super_type_name, HashSet<String> visited) {
+		if (info == null || visited.add(info.getName()) == false) {
+			return false;
+		}
+		if (super_type_name.equals(info.getSuperName()) || info.getInterfaceNames().contains(super_type_name)) {
+			return true;
+		}
+		if (info.getSuperName() != null && isSubTypeOf(getInfo(info.getSuperName()), super_type_name, visited)) {
+			return true;
+		}
+		return info.getInterfaceNames().stream().anyMatch(interface_name -> {
+			return isSubTypeOf(getInfo(interface_name), super_type_name, visited);
+		});
+	}
+	
+	/**
+	 * Forget all parsed class files.
+	 */
+	void clear() {
+		parsed.clear();
+	}
+	
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Keep the classes resolved, created and analyzed by a Factory during a training run, and write them as a JDK class list
+ * (-XX:SharedClassListFile), for create an AppCDS archive.
+ * Only the classes loaded by the boot, platform or application ClassLoaders are kept (not Proxy, lambda or JS generated classes),
+ * with their super classes and interfaces. With Java 11, only the classes from jar files can be archived.
+ * @see Factory#setClassListRecorder(ClassListRecorder)
+ */
+public class ClassListRecorder {
+	private static Logger log = Logger.getLogger(ClassListRecorder.class);
+	
+	private final Set<Class<?>> seen;
+	private final ConcurrentLinkedQueue<String> class_names;
+	
+	public ClassListRecorder() {
+		seen = ConcurrentHashMap.newKeySet();
+		class_names = new ConcurrentLinkedQueue<>();
+	}
+	
+	/**
+	 * Add this class (if it can be archived), and its super classes and interfaces. Only one time by class.
+	 */
+	public void record(Class<?> loaded_class) {
+		while (loaded_class != null && loaded_class.isArray()) {
+			loaded_class = loaded_class.getComponentType();
+		}
+		if (loaded_class == null || loaded_class.isPrimitive() || seen.add(loaded_class) == false) {
+			return;
+		}
+		
+		String name = loaded_class.getName();
+		if (isArchivable(loaded_class, name)) {
+			class_names.add(name.replace('.', '/'));
+		} else if (log.isTraceEnabled()) {
+			log.trace("Class " + name + " can't be archived");
+		}
+		
+		record(loaded_class.getSuperclass());
+		for (Class<?> interface_class : loaded_class.getInterfaces()) {
+			record(interface_class);
+		}
+	}
+	
+	private static boolean isArchivable(Class<?> loaded_class, String name) {
+		if (Proxy.isProxyClass(loaded_class) || name.indexOf('/') > -1 || name.contains("$$Lambda")) {
+			return false;
+		}
+		ClassLoader class_loader = loaded_class.getClassLoader();
+		return class_loader == null || class_loader == ClassLoader.getSystemClassLoader() || class_loader == ClassLoader.getPlatformClassLoader();
+	}
+	
+	/**
+	 * @return internal names (like java/lang/Object), in record order
+	 */
+	public List<String> getClassNames() {
+		return new ArrayList<>(class_names);
+	}
+	
+	public int size() {
+		return class_names.size();
+	}
+	
+	public void clear() {
+		seen.clear();
+		class_names.clear();
+	}
+	
+	/**
+	 * Drop the seen classes that match, for not keep a reference to an unloaded ClassLoader.
+	 * Only archivable classes are written, so class_names never contains them.
+	 */
+	public void forget(Predicate<Class<?>> to_forget) {
+		if (to_forget == null) {
+			throw new NullPointerException("\"to_forget\" can't to be null");
+		}
+		seen.removeIf(to_forget);
+	}
+	
+	/**
+	 * Overwrite class_list_file, one class by line.
+	 * @return this
+	 */
+	public ClassListRecorder write(File class_list_file) throws IOException {
+		if (class_list_file == null) {
+			throw new NullPointerException("\"class_list_file\" can't to be null");
+		}
+		List<String> lines = getClassNames();
+		Files.write(class_list_file.toPath(), lines, StandardCharsets.UTF_8);
+		log.info("Write " + lines.size() + " classes in " + class_list_file);
+		return this;
+	}
+	
+	/**
+	 * Run "java -Xshare:dump" (from the actual java.home) for create an AppCDS archive, and wait its end.
+	 * Start the application with getRuntimeArguments(archive_file), and with the same classpath.
+	 * The archive replace the JDK default CDS archive, so the JDK default class list ($JAVA_HOME/lib/classlist) is dumped with class_list_file.
+	 * @param classpath like Factory.getClasspath(). Directories must be empty or absent.
+	 * @throws IOException if the dump fails, with the JVM output.
+	 */
+	public static void createArchive(File class_list_file, File archive_file, List<File> classpath) throws IOException, InterruptedException {
+		createArchive(new File(System.getProperty("java.home")), class_list_file, archive_file, classpath);
+	}
+	
+	static void createArchive(File java_home, File class_list_file, File archive_file, List<File> classpath) throws IOException, InterruptedException {
+		if (class_list_file == null) {
+			throw new NullPointerException("\"class_list_file\" can't to be null");
+		} else if (archive_file == null) {
+			throw new NullPointerException("\"archive_file\" can't to be null");
+		} else if (classpath == null) {
+			throw new NullPointerException("\"classpath\" can't to be null");
+		} else if (class_list_file.isFile() == false) {
+			throw new IOException(class_list_file + " is not a regular file");
+		}
+		
+		File merged_class_list_file = mergeDefaultClassList(java_home, class_list_file);
+		try {
+			List<String> command = getDumpCommand(java_home, merged_class_list_file, archive_file, classpath);
+			log.info("Create AppCDS archive " + archive_file + " from " + class_list_file);
+			if (log.isDebugEnabled()) {
+				log.debug("Dump command: " + command);
+			}
+			
+			Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+			String output;
+			try (InputStream in = process.getInputStream()) {
+				output = IOUtils.toString(in, StandardCharsets.UTF_8);
+			}
+			int exit_code = process.waitFor();
+			if (exit_code != 0) {
+				throw new IOException("Can't create AppCDS archive " + archive_file + " (exit code " + exit_code + "): " + output);
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Dump output: " + output);
+			}
+		} finally {
+			if (merged_class_list_file.equals(class_list_file) == false) {
+				Files.deleteIfExists(merged_class_list_file.toPath());
+			}
+		}
+	}
+	
+	static List<String> getDumpCommand(File java_home, File class_list_file, File archive_file, List<File> classpath) {
+		File java = new File(new File(java_home, "bin"), "java");
+		ArrayList<String> command = new ArrayList<>(Arrays.asList(java.getPath(), "-Xshare:dump", "-XX:SharedClassListFile=" + class_list_file.getPath(), "-XX:SharedArchiveFile=" + archive_file.getPath()));
+		if (classpath.isEmpty() == false) {
+			command.add("-cp");
+			command.add(classpath.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator)));
+		}
+		return command;
+	}
+	
+	/**
+	 * @return a new temp file with the JDK default class list, followed by the class_list_file classes (without duplicates),
+	 *         or class_list_file if this JDK don't have a default class list.
+	 */
+	static File mergeDefaultClassList(File java_home, File class_list_file) throws IOException {
+		File default_class_list_file = new File(new File(java_home, "lib"), "classlist");
+		if (default_class_list_file.isFile() == false) {
+			log.warn("Can't found JDK default class list " + default_class_list_file + ", the archive will only contain the recorded classes");
+			return class_list_file;
+		}
+		
+		LinkedHashSet<String> lines = new LinkedHashSet<>(Files.readAllLines(default_class_list_file.toPath(), StandardCharsets.UTF_8));
+		lines.addAll(Files.readAllLines(class_list_file.toPath(), StandardCharsets.UTF_8));
+		lines.removeIf(line -> line.trim().isEmpty());
+		
+		File merged_class_list_file = File.createTempFile("appcds", ".classlist");
+		Files.write(merged_class_list_file.toPath(), lines, StandardCharsets.UTF_8);
+		return merged_class_list_file;
+	}
+	
+	/**
+	 * @return JVM options for start with an archive created by createArchive
+	 */
+	public static List<String> getRuntimeArguments(File archive_file) {
+		return Arrays.asList("-Xshare:auto", "-XX:SharedArchiveFile=" + archive_file.getPath());
+	}
+	
+}
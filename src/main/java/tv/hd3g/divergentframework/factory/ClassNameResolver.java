@@ -0,0 +1,350 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Thread safe class name to Class cache, by ClassLoader.
+ * Reads don't lock, and only one thread loads a given (ClassLoader, name) at the same time.
+ * Absent class names are kept for a limited time, for let a late added class (like a plugin jar) to be found.
+ * Loading errors (like a NoClassDefFoundError for a missing dependency) are never kept.
+ * Other ClassLoaders than the ClassNameResolver one (like plugins) are not kept by this cache: they are weak keys, and the resolved
+ * classes are weakly kept (a class keeps its ClassLoader).
+ */
+class ClassNameResolver {
+	private static Logger log = Logger.getLogger(ClassNameResolver.class);
+	
+	static final long DEFAULT_ABSENT_TTL = TimeUnit.SECONDS.toMillis(30);
+	static final int DEFAULT_MAX_ABSENT = 10_000;
+	
+	private final ClassLoader main_class_loader;
+	private final ConcurrentHashMap<String, Resolution> main_names;
+	/**
+	 * Like ComponentIndex, synchronized WeakHashMap
+	 */
+	private final Map<ClassLoader, ConcurrentHashMap<String, Resolution>> by_class_loader;
+	private final AtomicInteger absent_count;
+	private final LongAdder hits;
+	private final LongAdder absent_hits;
+	private final LongAdder loads;
+	private final LongAdder absent_loads;
+	private volatile long absent_ttl;
+	private volatile int max_absent;
+	
+	ClassNameResolver() {
+		main_class_loader = ClassNameResolver.class.getClassLoader();
+		main_names = new ConcurrentHashMap<>();
+		by_class_loader = Collections.synchronizedMap(new WeakHashMap<>());
+		absent_count = new AtomicInteger(0);
+		hits = new LongAdder();
+		absent_hits = new LongAdder();
+		loads = new LongAdder();
+		absent_loads = new LongAdder();
+		absent_ttl = DEFAULT_ABSENT_TTL;
+		max_absent = DEFAULT_MAX_ABSENT;
+	}
+	
+	/**
+	 * @param ttl 0 for never keep absent class names
+	 */
+	void setAbsentPolicy(long ttl, TimeUnit unit, int max_absent) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("Invalid ttl: " + ttl);
+		} else if (max_absent < 0) {
+			throw new IllegalArgumentException("Invalid max_absent: " + max_absent);
+		}
+		this.absent_ttl = unit.toMillis(ttl);
+		this.max_absent = max_absent;
+	}
+	
+	private class Resolution extends FutureTask<WeakReference<Class<?>>> {
+		private volatile long absent_until;
+		private volatile boolean failed;
+		
+		private Resolution(String class_name, ClassLoader class_loader) {
+			super(() -> {
+				try {
+					return new WeakReference<>(Class.forName(class_name, true, class_loader));
+				} catch (ClassNotFoundException e) {
+					return null;
+				}
+			});
+			absent_until = Long.MAX_VALUE;
+		}
+		
+		protected void set(WeakReference<Class<?>> resolved) {
+			if (resolved == null) {
+				absent_until = System.currentTimeMillis() + absent_ttl;
+				absent_count.incrementAndGet();
+			}
+			super.set(resolved);
+		}
+		
+		protected void setException(Throwable t) {
+			failed = true;
+			super.setException(t);
+		}
+		
+		/**
+		 * Only absent resolutions can expire.
+		 */
+		private boolean isExpired(long now) {
+			return now > absent_until;
+		}
+		
+		private boolean isAbsent() {
+			return absent_until != Long.MAX_VALUE;
+		}
+		
+		/**
+		 * @return null if not done, absent or in error
+		 */
+		private Class<?> getIfResolved() {
+			if (isDone() == false || isAbsent()) {
+				return null;
+			}
+			try {
+				return get().get();
+			} catch (InterruptedException | ExecutionException e) {
+				return null;
+			}
+		}
+		
+		private Class<?> getResolved(String class_name) {
+			try {
+				WeakReference<Class<?>> resolved = get();
+				return resolved == null ? null : resolved.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted during the loading of " + class_name, e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new RuntimeException("Can't load " + class_name, e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * @return maybe null
+	 */
+	Class<?> resolve(String class_name, ClassLoader class_loader) {
+		if (class_name == null) {
+			return null;
+		}
+		if (class_loader == null) {
+			class_loader = ClassLoader.getSystemClassLoader();
+		}
+		ConcurrentHashMap<String, Resolution> names = getNames(class_loader);
+		
+		while (true) {
+			Resolution actual = names.get(class_name);
+			if (actual != null && (actual.isAbsent() == false || actual.isExpired(System.currentTimeMillis()) == false)) {
+				Class<?> result = actual.getResolved(class_name);
+				if (result == null) {
+					absent_hits.increment();
+				} else {
+					hits.increment();
+				}
+				return result;
+			}
+			
+			Resolution candidate = new Resolution(class_name, class_loader);
+			if (actual == null) {
+				if (names.putIfAbsent(class_name, candidate) != null) {
+					continue;
+				}
+			} else if (names.replace(class_name, actual, candidate)) {
+				absent_count.decrementAndGet();
+			} else {
+				continue;
+			}
+			
+			/**
+			 * This thread is the only one to load this class name.
+			 */
+			candidate.run();
+			if (candidate.failed) {
+				/**
+				 * Throws the error, and the next call will try again.
+				 */
+				names.remove(class_name, candidate);
+			}
+			Class<?> result = candidate.getResolved(class_name);
+			if (result != null) {
+				loads.increment();
+			} else {
+				absent_loads.increment();
+				if (absent_ttl == 0) {
+					forgetAbsent(names, class_name, candidate);
+				} else if (absent_count.get() > max_absent) {
+					purgeAbsent();
+				}
+			}
+			return result;
+		}
+	}
+	
+	private ConcurrentHashMap<String, Resolution> getNames(ClassLoader class_loader) {
+		if (class_loader == main_class_loader) {
+			return main_names;
+		}
+		return by_class_loader.computeIfAbsent(class_loader, cl -> new ConcurrentHashMap<>());
+	}
+	
+	/**
+	 * @return a copy
+	 */
+	private List<ConcurrentHashMap<String, Resolution>> getAllNames() {
+		ArrayList<ConcurrentHashMap<String, Resolution>> result = new ArrayList<>();
+		result.add(main_names);
+		synchronized (by_class_loader) {
+			result.addAll(by_class_loader.values());
+		}
+		return result;
+	}
+	
+	private void forgetAbsent(ConcurrentHashMap<String, Resolution> names, String class_name, Resolution resolution) {
+		if (names.remove(class_name, resolution)) {
+			absent_count.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Remove expired absent entries, and all absent entries if it's still too big.
+	 * The count is computed again before, because the entries of a collected ClassLoader are removed without count them.
+	 */
+	private void purgeAbsent() {
+		long now = System.currentTimeMillis();
+		List<ConcurrentHashMap<String, Resolution>> all_names = getAllNames();
+		absent_count.set((int) all_names.stream().flatMap(names -> names.values().stream()).filter(resolution -> {
+			return resolution.isDone() && resolution.isAbsent();
+		}).count());
+		
+		for (int pass = 0; pass < 2; pass++) {
+			boolean remove_all = pass == 1;
+			all_names.forEach(names -> {
+				names.forEach((class_name, resolution) -> {
+					if (resolution.isDone() && resolution.isAbsent() && (remove_all | resolution.isExpired(now))) {
+						forgetAbsent(names, class_name, resolution);
+					}
+				});
+			});
+			if (absent_count.get() <= max_absent) {
+				break;
+			}
+		}
+		
+		if (log.isDebugEnabled()) {
+			log.debug("Purge absent class names, " + absent_count.get() + " still in cache");
+		}
+	}
+	
+	/**
+	 * @return resolutions found in cache
+	 */
+	long getHitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * @return resolutions found in cache as absent
+	 */
+	long getAbsentHitCount() {
+		return absent_hits.sum();
+	}
+	
+	/**
+	 * @return resolutions not in cache, and loaded
+	 */
+	long getLoadCount() {
+		return loads.sum();
+	}
+	
+	/**
+	 * @return resolutions not in cache, and not found
+	 */
+	long getAbsentLoadCount() {
+		return absent_loads.sum();
+	}
+	
+	/**
+	 * @return absent class names actually in cache
+	 */
+	int getAbsentCount() {
+		return absent_count.get();
+	}
+	
+	/**
+	 * Forget all the resolutions done with this ClassLoader, and the resolved classes matching filter with the others ClassLoaders.
+	 */
+	void forget(ClassLoader class_loader, Predicate<Class<?>> filter) {
+		ConcurrentHashMap<String, Resolution> removed;
+		if (class_loader == main_class_loader) {
+			removed = new ConcurrentHashMap<>(main_names);
+			main_names.clear();
+		} else {
+			removed = by_class_loader.remove(class_loader);
+		}
+		if (removed != null) {
+			removed.values().forEach(resolution -> {
+				if (resolution.isDone() && resolution.isAbsent()) {
+					absent_count.decrementAndGet();
+				}
+			});
+		}
+		
+		getAllNames().forEach(names -> {
+			names.forEach((class_name, resolution) -> {
+				Class<?> resolved = resolution.getIfResolved();
+				if (resolved != null && filter.test(resolved)) {
+					names.remove(class_name, resolution);
+				}
+			});
+		});
+	}
+	
+	/**
+	 * Forget all absent class names, like after a classpath change.
+	 */
+	void clearAbsent() {
+		getAllNames().forEach(names -> {
+			names.forEach((class_name, resolution) -> {
+				if (resolution.isDone() && resolution.isAbsent()) {
+					forgetAbsent(names, class_name, resolution);
+				}
+			});
+		});
+	}
+	
+}
@@ -0,0 +1,398 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Package name to top level class names, for all classpath items (jars and directories), and the jars declared by their
+ * manifest Class-Path (like with java -jar).
+ * Each item is scanned only one time, and scanned again only if its size or its date has changed.
+ * Sources are checked on the first call, and after that only if a revalidation period is set.
+ * The index can be saved in a cache file, for not scan the same jars on each start. Items out of the classpath are removed from it.
+ */
+class ClasspathIndex {
+	private static Logger log = Logger.getLogger(ClasspathIndex.class);
+	
+	private final Supplier<List<File>> classpath;
+	private final ConcurrentHashMap<File, ItemIndex> items;
+	private final Object lock;
+	
+	private volatile Map<String, List<String>> classes_by_package;
+	private volatile long last_check;
+	private volatile long revalidation_period;
+	private volatile File cache_file;
+	
+	/**
+	 * @param classpath called on each refresh
+	 */
+	ClasspathIndex(Supplier<List<File>> classpath) {
+		this.classpath = classpath;
+		if (classpath == null) {
+			throw new NullPointerException("\"classpath\" can't to be null");
+		}
+		items = new ConcurrentHashMap<>();
+		lock = new Object();
+		revalidation_period = Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Immutable scan result for a classpath item.
+	 */
+	private static class ItemIndex {
+		final long size;
+		final long date;
+		final Map<String, List<String>> classes_by_package;
+		/**
+		 * From the jar manifest Class-Path
+		 */
+		final List<File> class_path;
+		
+		ItemIndex(long size, long date, Map<String, List<String>> classes_by_package, List<File> class_path) {
+			this.size = size;
+			this.date = date;
+			this.classes_by_package = classes_by_package;
+			this.class_path = class_path;
+		}
+		
+		boolean isSameStamp(long[] stamp) {
+			return size == stamp[0] && date == stamp[1];
+		}
+	}
+	
+	/**
+	 * Never by default (only on the first call): a directory check walks in all its sub directories.
+	 * 0 for check classpath items on each call.
+	 */
+	void setRevalidationPeriod(long revalidation_period, TimeUnit unit) {
+		if (revalidation_period < 0) {
+			throw new IllegalArgumentException("Invalid revalidation_period: " + revalidation_period);
+		}
+		this.revalidation_period = unit.toMillis(revalidation_period);
+	}
+	
+	/**
+	 * Load it if exists, and save it after each change.
+	 * @param cache_file null for remove persistence.
+	 */
+	void setCacheFile(File cache_file) throws IOException {
+		synchronized (lock) {
+			this.cache_file = cache_file;
+			if (cache_file != null && cache_file.exists()) {
+				loadCacheFile(cache_file);
+			}
+			classes_by_package = null;
+		}
+	}
+	
+	/**
+	 * Forget a classpath item index, like after a jar replacement.
+	 */
+	void invalidate(File classpath_item) {
+		synchronized (lock) {
+			if (items.remove(classpath_item) != null) {
+				classes_by_package = null;
+			}
+		}
+	}
+	
+	void invalidateAll() {
+		synchronized (lock) {
+			items.clear();
+			classes_by_package = null;
+		}
+	}
+	
+	/**
+	 * @return top level class names, in classpath order. Never null.
+	 */
+	List<String> getTopLevelClassNames(String package_name) {
+		Map<String, List<String>> current = classes_by_package;
+		if (current == null || System.currentTimeMillis() - last_check > revalidation_period) {
+			current = refresh();
+		}
+		return current.getOrDefault(package_name, Collections.emptyList());
+	}
+	
+	private Map<String, List<String>> refresh() {
+		synchronized (lock) {
+			boolean has_changes = classes_by_package == null;
+			
+			LinkedHashSet<File> all_items = new LinkedHashSet<>();
+			for (File item : classpath.get()) {
+				has_changes |= check(item, all_items);
+			}
+			has_changes |= items.keySet().retainAll(all_items);
+			
+			if (has_changes) {
+				LinkedHashMap<String, List<String>> merged = new LinkedHashMap<>();
+				all_items.forEach(item -> {
+					ItemIndex item_index = items.get(item);
+					if (item_index == null) {
+						return;
+					}
+					item_index.classes_by_package.forEach((package_name, class_names) -> {
+						List<String> all_names = merged.computeIfAbsent(package_name, p -> new ArrayList<>());
+						class_names.forEach(class_name -> {
+							if (all_names.contains(class_name) == false) {
+								all_names.add(class_name);
+							}
+						});
+					});
+				});
+				merged.replaceAll((package_name, class_names) -> Collections.unmodifiableList(class_names));
+				classes_by_package = Collections.unmodifiableMap(merged);
+				
+				if (cache_file != null) {
+					try {
+						saveCacheFile(cache_file);
+					} catch (IOException e) {
+						log.warn("Can't save classpath index in " + cache_file, e);
+					}
+				}
+			}
+			
+			last_check = System.currentTimeMillis();
+			return classes_by_package;
+		}
+	}
+	
+	/**
+	 * Scan item if it has changed, and after its manifest Class-Path items (like the JVM class loader).
+	 * @param all_items checked items, in classpath order
+	 * @return true if item or one of its Class-Path items has changed
+	 */
+	private boolean check(File item, Set<File> all_items) {
+		if (all_items.add(item) == false) {
+			return false;
+		}
+		
+		boolean has_changes = false;
+		long[] stamp = getStamp(item);
+		ItemIndex actual = items.get(item);
+		if (actual == null || actual.isSameStamp(stamp) == false) {
+			try {
+				actual = scan(item, stamp);
+			} catch (IOException e) {
+				log.error("Can't scan classpath item " + item, e);
+				actual = new ItemIndex(stamp[0], stamp[1], Collections.emptyMap(), Collections.emptyList());
+			}
+			items.put(item, actual);
+			has_changes = true;
+		}
+		
+		for (File class_path_item : actual.class_path) {
+			if (class_path_item.exists()) {
+				has_changes |= check(class_path_item, all_items);
+			}
+		}
+		return has_changes;
+	}
+	
+	/**
+	 * For a directory, the date is the most recent date of it and its sub directories (a directory date change when a file is added or removed inside it).
+	 * @return {size, date}
+	 */
+	private static long[] getStamp(File item) {
+		if (item.isDirectory()) {
+			try (Stream<Path> sub_dirs = Files.walk(item.toPath())) {
+				long[] stamp = { 0, 0 };
+				sub_dirs.filter(Files::isDirectory).forEach(dir -> {
+					stamp[0]++;
+					stamp[1] = Math.max(stamp[1], dir.toFile().lastModified());
+				});
+				return stamp;
+			} catch (IOException e) {
+				log.warn("Can't walk in " + item, e);
+			}
+		}
+		return new long[] { item.length(), item.lastModified() };
+	}
+	
+	private static ItemIndex scan(File item, long[] stamp) throws IOException {
+		HashMap<String, List<String>> result = new HashMap<>();
+		List<File> class_path = Collections.emptyList();
+		
+		if (item.isDirectory()) {
+			Path root = item.toPath();
+			try (Stream<Path> files = Files.walk(root)) {
+				files.filter(Files::isRegularFile).map(f -> {
+					return root.relativize(f).toString().replace(File.separatorChar, '/');
+				}).forEach(relative_path -> {
+					addClassFile(result, relative_path);
+				});
+			}
+		} else if (item.isFile()) {
+			try (JarFile jar = new JarFile(item)) {
+				Manifest manifest = jar.getManifest();
+				if (manifest != null) {
+					class_path = parseClassPath(item, manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH));
+				}
+				
+				Iterator<JarEntry> entries = jar.entries().asIterator();
+				while (entries.hasNext()) {
+					JarEntry entry = entries.next();
+					if (entry.isDirectory() == false) {
+						addClassFile(result, entry.getName());
+					}
+				}
+			}
+		}
+		
+		result.replaceAll((package_name, class_names) -> {
+			Collections.sort(class_names);
+			return Collections.unmodifiableList(class_names);
+		});
+		return new ItemIndex(stamp[0], stamp[1], Collections.unmodifiableMap(result), class_path);
+	}
+	
+	/**
+	 * @param class_path manifest Class-Path value: space separated relative URLs, can be null
+	 * @return only the local files
+	 */
+	private static List<File> parseClassPath(File jar, String class_path) {
+		if (class_path == null || class_path.isBlank()) {
+			return Collections.emptyList();
+		}
+		URI base = jar.toURI();
+		return Collections.unmodifiableList(Arrays.stream(class_path.trim().split("\\s+")).map(url -> {
+			try {
+				URI resolved = base.resolve(url);
+				if ("file".equals(resolved.getScheme()) == false) {
+					return null;
+				}
+				return new File(resolved).getCanonicalFile();
+			} catch (IllegalArgumentException | IOException e) {
+				log.warn("Invalid Class-Path item \"" + url + "\" in " + jar + " manifest");
+				return null;
+			}
+		}).filter(f -> {
+			return f != null;
+		}).collect(Collectors.toList()));
+	}
+	
+	/**
+	 * Ignore inner classes, package-info, module-info and versioned entries (META-INF/versions).
+	 */
+	private static void addClassFile(Map<String, List<String>> result, String relative_path) {
+		if (relative_path.endsWith(".class") == false || relative_path.startsWith("META-INF/")) {
+			return;
+		}
+		String class_name = relative_path.substring(0, relative_path.length() - ".class".length()).replace('/', '.');
+		if (class_name.indexOf('$') > -1 || class_name.endsWith("package-info") || class_name.endsWith("module-info")) {
+			return;
+		}
+		int last_dot = class_name.lastIndexOf('.');
+		String package_name = last_dot == -1 ? "" : class_name.substring(0, last_dot);
+		result.computeIfAbsent(package_name, p -> new ArrayList<>()).add(class_name);
+	}
+	
+	private static final String CLASS_PATH_KEY_PREFIX = "Class-Path:";
+	
+	/**
+	 * Format: path=size date package.Class1 package.Class2 ...
+	 * and Class-Path:path=manifest class path items, separated by the path separator
+	 */
+	private void saveCacheFile(File cache_file) throws IOException {
+		Properties content = new Properties();
+		items.forEach((item, item_index) -> {
+			if (item_index.class_path.isEmpty() == false) {
+				content.setProperty(CLASS_PATH_KEY_PREFIX + item.getPath(), item_index.class_path.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator)));
+			}
+			
+			StringBuilder sb = new StringBuilder();
+			sb.append(item_index.size);
+			sb.append(" ");
+			sb.append(item_index.date);
+			item_index.classes_by_package.values().forEach(class_names -> {
+				class_names.forEach(class_name -> {
+					sb.append(" ");
+					sb.append(class_name);
+				});
+			});
+			content.setProperty(item.getPath(), sb.toString());
+		});
+		
+		try (OutputStream out = new FileOutputStream(cache_file)) {
+			content.store(out, "Generated by " + getClass().getName());
+		}
+	}
+	
+	private void loadCacheFile(File cache_file) throws IOException {
+		Properties content = new Properties();
+		try (InputStream in = new FileInputStream(cache_file)) {
+			content.load(in);
+		}
+		
+		content.stringPropertyNames().stream().filter(path -> {
+			return path.startsWith(CLASS_PATH_KEY_PREFIX) == false;
+		}).forEach(path -> {
+			String[] values = content.getProperty(path).split(" ");
+			if (values.length < 2) {
+				return;
+			}
+			try {
+				long size = Long.parseLong(values[0]);
+				long date = Long.parseLong(values[1]);
+				
+				HashMap<String, List<String>> result = new HashMap<>();
+				for (int pos = 2; pos < values.length; pos++) {
+					addClassFile(result, values[pos].replace('.', '/') + ".class");
+				}
+				String class_path = content.getProperty(CLASS_PATH_KEY_PREFIX + path, "");
+				List<File> class_path_items = class_path.isEmpty() ? Collections.emptyList() : Arrays.stream(class_path.split(File.pathSeparator)).map(File::new).collect(Collectors.toUnmodifiableList());
+				
+				items.put(new File(path), new ItemIndex(size, date, result.entrySet().stream().collect(Collectors.toUnmodifiableMap(entry -> entry.getKey(), entry -> Collections.unmodifiableList(entry.getValue()))), class_path_items));
+			} catch (NumberFormatException e) {
+				log.warn("Invalid classpath index entry for " + path + " in " + cache_file);
+			}
+		});
+		
+		log.debug("Load classpath index from " + cache_file + " (" + items.size() + " items)");
+	}
+	
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Immutable way to create a class instance: the constructor to call, and how to get each constructor parameter.
+ * Resolved only one time by class, with all its dependencies.
+ */
+class CreationPlan {
+	private static Logger log = Logger.getLogger(CreationPlan.class);
+	
+	/**
+	 * A constructor parameter.
+	 */
+	static class Dependency {
+		/**
+		 * Like declared in the constructor, maybe an interface.
+		 */
+		final Class<?> type;
+		
+		/**
+		 * null if the parameter must be get by Factory.create (SingleInstance, JS binded interface), else the plan to call directly.
+		 */
+		final CreationPlan plan;
+		
+		Dependency(Class<?> type, CreationPlan plan) {
+			this.type = type;
+			this.plan = plan;
+		}
+		
+		public String toString() {
+			if (plan == null) {
+				return type.getName();
+			}
+			return type.getName() + " (" + plan.target_class.getName() + ")";
+		}
+	}
+	
+	final Class<?> target_class;
+	final List<Dependency> dependencies;
+	
+	/**
+	 * null if this plan don't needs a binding table
+	 */
+	final BindingTable binding_table;
+	
+	private final Supplier<?> instantiator;
+	private final Constructor<?> constructor;
+	private final MethodHandle constructor_handle;
+	
+	/**
+	 * @param dependencies empty for a no-arg constructor
+	 * @param binding_table the binding table used for resolve the dependencies, or null if not used.
+	 */
+	CreationPlan(Class<?> target_class, Constructor<?> constructor, List<Dependency> dependencies, BindingTable binding_table) {
+		this.target_class = target_class;
+		this.constructor = constructor;
+		this.dependencies = Collections.unmodifiableList(dependencies);
+		this.binding_table = binding_table;
+		
+		if (dependencies.isEmpty()) {
+			instantiator = makeInstantiator(target_class, constructor);
+			constructor_handle = null;
+		} else {
+			instantiator = null;
+			constructor_handle = makeConstructorHandle(target_class, constructor);
+		}
+	}
+	
+	/**
+	 * @return true if this plan (or one of its dependencies plans) was builded with an another binding table.
+	 */
+	boolean isOutdated(BindingTable actual_binding_table) {
+		return binding_table != null && binding_table != actual_binding_table;
+	}
+	
+	/**
+	 * @return true if this plan (or one of its dependencies plans) uses a class matching filter.
+	 */
+	boolean uses(Predicate<Class<?>> filter) {
+		if (filter.test(target_class)) {
+			return true;
+		}
+		return dependencies.stream().anyMatch(dependency -> {
+			return filter.test(dependency.type) || dependency.plan != null && dependency.plan.uses(filter);
+		});
+	}
+	
+	/**
+	 * Reflective errors are thrown in an UndeclaredThrowableException.
+	 * @param parameters resolved dependencies, in the same order
+	 */
+	Object newInstance(Object[] parameters) {
+		if (instantiator != null) {
+			return instantiator.get();
+		} else if (constructor_handle != null) {
+			try {
+				return constructor_handle.invokeExact(parameters);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		}
+		
+		try {
+			return constructor.newInstance(parameters);
+		} catch (InvocationTargetException e) {
+			throw new UndeclaredThrowableException(e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new UndeclaredThrowableException(e);
+		}
+	}
+	
+	/**
+	 * @return a generated Supplier (via LambdaMetafactory) if the constructor is accessible from here, else a Supplier with a reflective call.
+	 *         Reflective errors are thrown in an UndeclaredThrowableException.
+	 */
+	private static Supplier<?> makeInstantiator(Class<?> from_class, Constructor<?> constructor) {
+		if (constructor.canAccess(null) && Modifier.isAbstract(from_class.getModifiers()) == false) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(from_class, MethodHandles.lookup());
+				MethodHandle constructor_handle = lookup.unreflectConstructor(constructor);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), constructor_handle, MethodType.methodType(from_class));
+				return (Supplier<?>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				log.debug("Can't generate instantiator for " + from_class.getName() + ", use reflection", e);
+			}
+		}
+		
+		return () -> {
+			try {
+				return constructor.newInstance();
+			} catch (InvocationTargetException e) {
+				throw new UndeclaredThrowableException(e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		};
+	}
+	
+	/**
+	 * @return (Object[])Object handle, or null for use reflection.
+	 */
+	private static MethodHandle makeConstructorHandle(Class<?> from_class, Constructor<?> constructor) {
+		if (constructor.canAccess(null) && Modifier.isAbstract(from_class.getModifiers()) == false) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(from_class, MethodHandles.lookup());
+				return lookup.unreflectConstructor(constructor).asSpreader(Object[].class, constructor.getParameterCount()).asType(MethodType.methodType(Object.class, Object[].class));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				log.debug("Can't generate constructor handle for " + from_class.getName() + ", use reflection", e);
+			}
+		}
+		return null;
+	}
+	
+	public String toString() {
+		if (dependencies.isEmpty()) {
+			return target_class.getName();
+		}
+		return target_class.getName() + " <- " + dependencies.stream().map(Dependency::toString).collect(Collectors.joining(", "));
+	}
+	
+	/**
+	 * Search a public no-arg constructor, else the only one public constructor (for inject its parameters), else the declared no-arg constructor.
+	 */
+	static Constructor<?> selectConstructor(Class<?> from_class) throws NoSuchMethodException {
+		List<Constructor<?>> public_constructors = Arrays.asList(from_class.getConstructors());
+		
+		Constructor<?> constructor = public_constructors.stream().filter(c -> {
+			return c.canAccess(null) && c.getParameterCount() == 0 && c.isVarArgs() == false;
+		}).findFirst().orElse(null);
+		if (constructor != null) {
+			return constructor;
+		}
+		
+		if (public_constructors.size() == 1 && public_constructors.get(0).isVarArgs() == false) {
+			return public_constructors.get(0);
+		}
+		return from_class.getDeclaredConstructor();
+	}
+	
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the creations of a class.
+ * The latency histogram counts the creations by duration: up to 10 µs, 100 µs, 1 ms, 10 ms, 100 ms, 1 s, and more.
+ * With Factory.createMany, each instance is timed alone: the batch shared work (binding, creation plan, configuration) is
+ * only added to the total time, so the mean time can be more than the histogram durations.
+ */
+public class CreationStatistics {
+	
+	/**
+	 * Upper bounds (inclusive) in µs of each histogram slot, except for the last slot.
+	 */
+	static final long[] LATENCY_BOUNDS = { 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+	
+	private final String class_name;
+	private final long count;
+	private final long total_time;
+	private final long max_time;
+	private final long[] latency_histogram;
+	
+	CreationStatistics(String class_name, long count, long total_time, long max_time, long[] latency_histogram) {
+		this.class_name = class_name;
+		this.count = count;
+		this.total_time = total_time;
+		this.max_time = max_time;
+		this.latency_histogram = latency_histogram;
+	}
+	
+	public String getClassName() {
+		return class_name;
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return in µs
+	 */
+	public long getTotalTime() {
+		return total_time;
+	}
+	
+	/**
+	 * @return in µs
+	 */
+	public long getMaxTime() {
+		return max_time;
+	}
+	
+	/**
+	 * @return in µs, 0 if never created
+	 */
+	public long getMeanTime() {
+		if (count == 0) {
+			return 0;
+		}
+		return total_time / count;
+	}
+	
+	/**
+	 * @return creation counts by duration, with 7 slots: up to 10 µs, 100 µs, 1 ms, 10 ms, 100 ms, 1 s, and more.
+	 */
+	public long[] getLatencyHistogram() {
+		return Arrays.copyOf(latency_histogram, latency_histogram.length);
+	}
+	
+	static int getLatencySlot(long duration_us) {
+		for (int pos = 0; pos < LATENCY_BOUNDS.length; pos++) {
+			if (duration_us <= LATENCY_BOUNDS[pos]) {
+				return pos;
+			}
+		}
+		return LATENCY_BOUNDS.length;
+	}
+	
+	public String toString() {
+		return class_name + ": " + count + " created, mean " + getMeanTime() + " µs, max " + max_time + " µs, histogram " + Arrays.toString(latency_histogram);
+	}
+	
+}
@@ -20,33 +20,47 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.script.ScriptException;
 
 import org.apache.log4j.Logger;
 
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.reflect.ClassPath;
-import com.google.common.reflect.ClassPath.ClassInfo;
-import com.google.gson.JsonPrimitive;
 
+import tv.hd3g.divergentframework.factory.BindingTable.Binding;
+import tv.hd3g.divergentframework.factory.BindingTable.Kind;
 import tv.hd3g.divergentframework.factory.configuration.ConfigurationUtility;
+import tv.hd3g.divergentframework.factory.index.ComponentIndex;
+import tv.hd3g.divergentframework.factory.jfr.FactoryCreateEvent;
+import tv.hd3g.divergentframework.factory.js.JsScriptCache;
 import tv.hd3g.divergentframework.factory.js.JsToolkit;
 import tv.hd3g.divergentframework.factory.watchfolder.WatchFolder;
 import tv.hd3g.divergentframework.factory.watchfolder.WatchfolderEvent;
@@ -56,38 +70,84 @@ import tv.hd3g.divergentframework.factory.watchfolder.WatchfolderEvent;
  */
 public class Factory {
 	private static Logger log = Logger.getLogger(Factory.class);
+	private static final AtomicInteger factory_count = new AtomicInteger(0);
 	
-	private final ArrayList<File> classpath;
-	private final HashMap<String, Class<?>> class_names;
-	private final HashSet<String> absent_class_names;
-	private final ConcurrentHashMap<Class<?>, Constructor<?>> class_constructor;
+	private final Factory parent;
+	private volatile ArrayList<File> classpath;
+	private final ClasspathIndex classpath_index;
+	private final ClassFileScanner class_file_scanner;
+	private final ClassNameResolver class_names;
+	private final ConcurrentHashMap<Class<?>, CreationPlan> creation_plans;
 	private final Object lock;
-	private final Properties bind_map;
-	private final ConcurrentHashMap<Class<?>, Object> single_instances;
-	private final ConfigurationUtility configurator;
+	private final BindMap bind_map;
+	private volatile BindingTable binding_table;
+	private final SingletonRegistry single_instances;
+	private final ConcurrentHashMap<Class<?>, Lifecycle> lifecycles;
+	private volatile boolean has_declared_lifecycles;
+	private final ThreadLocal<HashMap<Class<?>, Object>> thread_instances;
+	private final ConcurrentHashMap<Class<?>, InstancePool<?>> pools;
+	private final CopyOnWriteArrayList<ClassLoader> plugins;
+	private volatile ConfigurationUtility configurator;
+	private volatile StartupProfiler startup_profiler;
+	private volatile ClassListRecorder class_list_recorder;
 	
-	private JsToolkit js_toolkit;
+	private volatile JsToolkit js_toolkit;
+	private volatile JsScriptCache js_script_cache;
+	private volatile Executor async_executor;
+	private final FactoryStatistics statistics;
+	private volatile ObjectName mxbean_name;
 	
 	public Factory() {
-		ArrayList<String> classpath_string = Lists.newArrayList(System.getProperty("java.class.path").split(System.getProperty("path.separator")));
+		this(null);
+	}
+	
+	/**
+	 * @param parent if not null, share (read only) its classpath, class caches, creation plans, class definitions and created SingleInstance Objects.
+	 */
+	private Factory(Factory parent) {
+		this.parent = parent;
 		
-		classpath = new ArrayList<>(classpath_string.size());
-		classpath_string.forEach(cp -> {
-			File f = new File(cp);
-			try {
-				classpath.add(f.getCanonicalFile());
-			} catch (Exception e) {
-				log.error("Can't access to classpath item: " + cp);
-			}
-		});
+		if (parent == null) {
+			classpath_index = new ClasspathIndex(this::getClasspath);
+			class_file_scanner = new ClassFileScanner(Factory.class.getClassLoader());
+			class_names = new ClassNameResolver();
+			bind_map = new BindMap();
+			single_instances = new SingletonRegistry(null);
+		} else {
+			classpath_index = parent.classpath_index;
+			class_file_scanner = parent.class_file_scanner;
+			class_names = parent.class_names;
+			bind_map = new BindMap(parent.bind_map);
+			single_instances = new SingletonRegistry(parent.single_instances);
+		}
 		
-		class_names = new HashMap<>();
-		absent_class_names = new HashSet<>();
-		class_constructor = new ConcurrentHashMap<>();
-		bind_map = new Properties();
+		creation_plans = new ConcurrentHashMap<>();
 		lock = new Object();
-		single_instances = new ConcurrentHashMap<>();
-		configurator = new ConfigurationUtility(this);
+		lifecycles = new ConcurrentHashMap<>();
+		thread_instances = ThreadLocal.withInitial(HashMap::new);
+		pools = new ConcurrentHashMap<>();
+		plugins = new CopyOnWriteArrayList<>();
+		statistics = new FactoryStatistics(class_names, single_instances);
+		if (parent != null) {
+			statistics.setCreationStatisticsEnabled(parent.statistics.isCreationStatisticsEnabled());
+		}
+	}
+	
+	/**
+	 * A child Factory reads through this Factory for: class caches, creation plans, class definitions, bind map, configurations
+	 * and already created SingleInstance Objects. Its changes (bind map, configurations, new SingleInstance Objects, declared lifecycles)
+	 * are only for it.
+	 * The lifecycles declarations on this Factory must be done before create children.
+	 */
+	public Factory createChild() {
+		return new Factory(this);
+	}
+	
+	/**
+	 * @return null if it's not a child Factory
+	 */
+	public Factory getParent() {
+		return parent;
 	}
 	
 	/**
@@ -137,16 +197,68 @@ public class Factory {
 			throw new IOException(class_mnemonics_file + " (class_mnemonics_file) can't to be put in directory_configuration directory (" + directory_configuration + ")");
 		}
 		
-		configurator.loadMnemonicClassNameListFromFile(class_mnemonics_file).addConfigurationFilesToInternalList(directory_configuration).scanImportedFiles();
+		getConfigurator().loadMnemonicClassNameListFromFile(class_mnemonics_file).addConfigurationFilesToInternalList(directory_configuration).scanImportedFiles();
 	}
 	
 	/**
+	 * Computed on the first call, and shared with the children.
 	 * @return CanonicalFile and ExistsCanRead
 	 */
 	public ArrayList<File> getClasspath() {
+		if (parent != null) {
+			return parent.getClasspath();
+		}
+		if (classpath == null) {
+			synchronized (lock) {
+				if (classpath == null) {
+					long start = System.nanoTime();
+					ArrayList<String> classpath_string = Lists.newArrayList(System.getProperty("java.class.path").split(System.getProperty("path.separator")));
+					
+					ArrayList<File> items = new ArrayList<>(classpath_string.size());
+					classpath_string.forEach(cp -> {
+						File f = new File(cp);
+						try {
+							items.add(f.getCanonicalFile());
+						} catch (Exception e) {
+							log.error("Can't access to classpath item: " + cp);
+						}
+					});
+					classpath = items;
+					profile(StartupProfiler.Phase.CLASSPATH, items.size() + " items", start);
+				}
+			}
+		}
 		return classpath;
 	}
 	
+	/**
+	 * Get the boot phases durations (classpath, GsonKit, configuration, SingleInstance creations...) after this call.
+	 * @param startup_profiler can be null, for stop the profiling
+	 * @return this
+	 */
+	public Factory setStartupProfiler(StartupProfiler startup_profiler) {
+		this.startup_profiler = startup_profiler;
+		return this;
+	}
+	
+	/**
+	 * @return null if not set here or on parent
+	 */
+	public StartupProfiler getStartupProfiler() {
+		StartupProfiler result = startup_profiler;
+		if (result == null && parent != null) {
+			return parent.getStartupProfiler();
+		}
+		return result;
+	}
+	
+	private void profile(StartupProfiler.Phase phase, String detail, long start) {
+		StartupProfiler profiler = getStartupProfiler();
+		if (profiler != null) {
+			profiler.record(phase, detail, start);
+		}
+	}
+	
 	/**
 	 * @return CanonicalFile and ExistsCanRead
 	 */
@@ -157,109 +269,408 @@ public class Factory {
 	}
 	
 	/**
+	 * Search with the Factory ClassLoader.
 	 * @return maybe null
 	 */
 	public Class<?> getClassByName(String class_name) {
-		if (class_name == null) {
-			return null;
+		Class<?> result = class_names.resolve(class_name, Factory.class.getClassLoader());
+		if (result == null) {
+			result = getClassByNameFromPlugins(class_name);
 		}
-		if (absent_class_names.contains(class_name)) {
-			return null;
+		return recordClass(result);
+	}
+	
+	/**
+	 * @return maybe null
+	 */
+	private Class<?> getClassByNameFromPlugins(String class_name) {
+		for (ClassLoader plugin_class_loader : plugins) {
+			Class<?> result = class_names.resolve(class_name, plugin_class_loader);
+			if (result != null) {
+				return result;
+			}
 		}
-		if (class_names.containsKey(class_name)) {
-			return class_names.get(class_name);
+		if (parent != null) {
+			return parent.getClassByNameFromPlugins(class_name);
 		}
-		synchronized (lock) {
-			try {
-				Class<?> checked = Class.forName(class_name);
-				class_names.put(class_name, checked);
-				return checked;
-			} catch (ClassNotFoundException e) {
-				absent_class_names.add(class_name);
-				return null;
+		return null;
+	}
+	
+	/**
+	 * The classes from this ClassLoader can be found by getClassByName (after the Factory ClassLoader), so they can be used in
+	 * bind map and configurations. Registered plugins are visible from the child Factories.
+	 * @return this
+	 */
+	public Factory registerPlugin(ClassLoader plugin_class_loader) {
+		if (plugin_class_loader == null) {
+			throw new NullPointerException("\"plugin_class_loader\" can't to be null");
+		}
+		if (plugins.addIfAbsent(plugin_class_loader)) {
+			log.info("Register plugin " + plugin_class_loader);
+			refreshBindMap();
+		}
+		return this;
+	}
+	
+	/**
+	 * @return only the plugins registered here
+	 */
+	public List<ClassLoader> getPlugins() {
+		return Collections.unmodifiableList(plugins);
+	}
+	
+	/**
+	 * Forget all the class names, creation plans, lifecycles, SingleInstance Objects, pools, mnemonics, configurations and class
+	 * definitions with classes loaded by this ClassLoader (or by one of its children), for let it to be garbage collected.
+	 * Thread instances are only removed for the current thread, and child Factories must unload it too.
+	 * Close the ClassLoader is up to the caller.
+	 * @return this
+	 */
+	public Factory unloadPlugin(ClassLoader plugin_class_loader) {
+		if (plugin_class_loader == null) {
+			throw new NullPointerException("\"plugin_class_loader\" can't to be null");
+		}
+		plugins.remove(plugin_class_loader);
+		Predicate<Class<?>> from_plugin = c -> isLoadedBy(c, plugin_class_loader);
+		
+		class_names.forget(plugin_class_loader, from_plugin);
+		creation_plans.values().removeIf(plan -> plan.uses(from_plugin));
+		lifecycles.keySet().removeIf(from_plugin);
+		pools.keySet().stream().filter(from_plugin).collect(Collectors.toList()).forEach(pooled_class -> {
+			InstancePool<?> pool = pools.remove(pooled_class);
+			if (pool != null) {
+				pool.clear();
 			}
+		});
+		single_instances.removeIf(from_plugin);
+		thread_instances.get().keySet().removeIf(from_plugin);
+		
+		for (Factory actual = this; actual != null; actual = actual.parent) {
+			ClassListRecorder recorder = actual.class_list_recorder;
+			if (recorder != null) {
+				recorder.forget(from_plugin);
+			}
+		}
+		
+		ConfigurationUtility actual_configurator = configurator;
+		if (actual_configurator != null) {
+			actual_configurator.forgetClasses(from_plugin);
 		}
+		ComponentIndex.forget(plugin_class_loader);
+		refreshBindMap();
+		
+		log.info("Unload plugin " + plugin_class_loader);
+		return this;
 	}
 	
-	public boolean isClassExists(String class_name) {
-		if (class_name == null) {
-			return false;
+	/**
+	 * @return true if loaded by class_loader, or by one of its children
+	 */
+	private static boolean isLoadedBy(Class<?> loaded_class, ClassLoader class_loader) {
+		ClassLoader actual = loaded_class.getClassLoader();
+		while (actual != null) {
+			if (actual == class_loader) {
+				return true;
+			}
+			actual = actual.getParent();
 		}
-		if (absent_class_names.contains(class_name)) {
-			return false;
+		return false;
+	}
+	
+	/**
+	 * @param class_loader if null, use the system ClassLoader
+	 * @return maybe null
+	 */
+	public Class<?> getClassByName(String class_name, ClassLoader class_loader) {
+		return recordClass(class_names.resolve(class_name, class_loader));
+	}
+	
+	/**
+	 * Training run mode: keep all the classes resolved by getClassByName, created by create and analyzed for configuration.
+	 * @param class_list_recorder can be null, for stop the recording
+	 * @return this
+	 */
+	public Factory setClassListRecorder(ClassListRecorder class_list_recorder) {
+		this.class_list_recorder = class_list_recorder;
+		return this;
+	}
+	
+	/**
+	 * @return null if not set here or on parent
+	 */
+	public ClassListRecorder getClassListRecorder() {
+		ClassListRecorder result = class_list_recorder;
+		if (result == null && parent != null) {
+			return parent.getClassListRecorder();
 		}
-		if (class_names.containsKey(class_name)) {
-			return true;
+		return result;
+	}
+	
+	/**
+	 * @param loaded_class can be null
+	 * @return loaded_class
+	 */
+	public Class<?> recordClass(Class<?> loaded_class) {
+		if (loaded_class != null) {
+			ClassListRecorder recorder = getClassListRecorder();
+			if (recorder != null) {
+				recorder.record(loaded_class);
+			}
 		}
+		return loaded_class;
+	}
+	
+	public boolean isClassExists(String class_name) {
 		return getClassByName(class_name) != null;
 	}
 	
+	/**
+	 * A not found class name is not searched again before ttl. Default is 30 seconds, and 10000 names.
+	 * @param ttl 0 for never keep not found class names
+	 * @param max_absent if more, forget expired not found class names, and after all not found class names.
+	 * @return this
+	 */
+	public Factory setAbsentClassNamesPolicy(long ttl, TimeUnit unit, int max_absent) {
+		class_names.setAbsentPolicy(ttl, unit, max_absent);
+		return this;
+	}
+	
+	/**
+	 * Let all previousely not found class names to be searched again, like after add a jar in classpath.
+	 * @return this
+	 */
+	public Factory forgetAbsentClassNames() {
+		class_names.clearAbsent();
+		return this;
+	}
+	
 	/**
 	 * @see getBindMap to put Interface <-> java class/js file (with JsToolkit)
 	 */
 	private <T> T createNewInstance(Class<T> from_class_or_interface) throws ReflectiveOperationException {
-		Class<T> from_class = from_class_or_interface;
-		if (from_class_or_interface.isInterface()) {
-			String bind_to = bind_map.getProperty(from_class_or_interface.getName());
-			
-			if (bind_to == null) {
-				throw new ClassNotFoundException("Interface " + from_class_or_interface + " is not binded to a class or JS file. Can't instance a simple Interface.");
-			}
-			
-			try {
-				File source_file = new File(bind_to);
-				if (source_file.exists() && source_file.canRead() && source_file.isFile()) {
-					return getJsToolkit().instanceTypeFromJs(from_class_or_interface, source_file, true);
-				} else {
-					try {
-						URL url = new URL(bind_to);
-						return getJsToolkit().instanceTypeFromJs(from_class_or_interface, url.openStream(), url.toString(), true);
-					} catch (MalformedURLException e) {
-					}
-				}
-			} catch (IOException | ScriptException e) {
-				throw new ReflectiveOperationException("Can't instance Interface " + from_class_or_interface.getName(), e);
+		boolean timed = statistics.isCreationStatisticsEnabled();
+		long start = timed ? System.nanoTime() : 0;
+		T result;
+		Class<? extends T> from_class = getImplementation(from_class_or_interface);
+		if (from_class == null) {
+			result = createFromJs(from_class_or_interface);
+		} else {
+			result = from_class_or_interface.cast(newInstance(getCreationPlan(from_class)));
+		}
+		if (timed) {
+			statistics.onCreated(from_class_or_interface, System.nanoTime() - start);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return from_class_or_interface if it's not an interface, the binded class, or null if it's binded to a JS file/URL.
+	 */
+	private <T> Class<? extends T> getImplementation(Class<T> from_class_or_interface) throws ReflectiveOperationException {
+		if (from_class_or_interface.isInterface() == false) {
+			return from_class_or_interface;
+		}
+		
+		Binding binding = getBindingTable().get(from_class_or_interface);
+		if (binding == null) {
+			throw new ClassNotFoundException("Interface " + from_class_or_interface + " is not binded to a class or JS file. Can't instance a simple Interface.");
+		} else if (binding.kind == Kind.JS_FILE || binding.kind == Kind.JS_URL) {
+			return null;
+		} else if (binding.kind == Kind.UNRESOLVED) {
+			throw new ClassNotFoundException("Interface " + from_class_or_interface + " is badly binded to \"" + binding.bind_to + "\". Only JS File, JS from URL and simple class are valid");
+		}
+		
+		Class<?> implementation_candidate = binding.implementation;
+		if (from_class_or_interface.isAssignableFrom(implementation_candidate) == false) {
+			throw new ReflectiveOperationException("Class " + implementation_candidate + " is not assignable to Interface " + from_class_or_interface);
+		}
+		
+		@SuppressWarnings("unchecked")
+		Class<? extends T> checked_class = (Class<? extends T>) implementation_candidate;
+		return checked_class;
+	}
+	
+	private <T> T createFromJs(Class<T> from_interface) throws ReflectiveOperationException {
+		Binding binding = getBindingTable().get(from_interface);
+		if (binding == null) {
+			throw new ClassNotFoundException("Interface " + from_interface + " is not binded to a class or JS file. Can't instance a simple Interface.");
+		}
+		
+		try {
+			if (binding.kind == Kind.JS_FILE) {
+				return getJsScriptCache().instanceTypeFromJs(from_interface, binding.js_file, true);
+			} else if (binding.kind == Kind.JS_URL) {
+				return getJsScriptCache().instanceTypeFromJs(from_interface, binding.js_url, true);
 			}
-			
-			if (isClassExists(bind_to) == false) {
-				throw new ClassNotFoundException("Interface " + from_class_or_interface + " is badly binded to \"" + bind_to + "\". Only JS File, JS from URL and simple class are valid");
+		} catch (IOException | ScriptException e) {
+			throw new ReflectiveOperationException("Can't instance Interface " + from_interface.getName(), e);
+		}
+		throw new ClassNotFoundException("Interface " + from_interface + " is not binded to a JS file");
+	}
+	
+	/**
+	 * Resolve all the constructor parameters, call the constructor, and configure the new instance if needed.
+	 */
+	private Object newInstance(CreationPlan plan) throws ReflectiveOperationException {
+		Object result = instantiate(plan);
+		
+		if (isClassIsConfigured(plan.target_class)) {
+			@SuppressWarnings("unchecked")
+			Class<Object> target_class = (Class<Object>) plan.target_class;
+			getConfigurator().addNewClassInstanceToConfigure(result, target_class);
+			statistics.onConfigured(1);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Resolve all the constructor parameters, and call the constructor, without configure the new instance.
+	 */
+	private Object instantiate(CreationPlan plan) throws ReflectiveOperationException {
+		recordClass(plan.target_class);
+		Object[] parameters = new Object[plan.dependencies.size()];
+		for (int pos = 0; pos < parameters.length; pos++) {
+			CreationPlan.Dependency dependency = plan.dependencies.get(pos);
+			if (dependency.plan != null) {
+				parameters[pos] = newInstance(dependency.plan);
+			} else {
+				parameters[pos] = create(dependency.type);
 			}
-			
-			Class<?> implementation_candidate = getClassByName(bind_to);
-			
-			if (from_class_or_interface.isAssignableFrom(implementation_candidate) == false) {
-				throw new ReflectiveOperationException("Class " + implementation_candidate + " is not assignable to Interface " + from_class_or_interface);
+		}
+		
+		Object result;
+		try {
+			result = plan.newInstance(parameters);
+		} catch (UndeclaredThrowableException e) {
+			if (e.getCause() instanceof ReflectiveOperationException) {
+				throw (ReflectiveOperationException) e.getCause();
 			}
-			
-			@SuppressWarnings("unchecked")
-			Class<T> checked_class = (Class<T>) implementation_candidate;
-			from_class = checked_class;
+			throw new InvocationTargetException(e.getCause(), "Can't instance " + plan.target_class.getName());
+		} catch (Exception e) {
+			throw new InvocationTargetException(e, "Can't instance " + plan.target_class.getName());
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the actual binding table, rebuilded if the bind map has changed since the last call.
+	 */
+	private BindingTable getBindingTable() {
+		BindingTable table = binding_table;
+		if (table != null && table.version == bind_map.getVersion()) {
+			return table;
 		}
 		
-		Constructor<?> constructor = class_constructor.computeIfAbsent(from_class, cl -> {
-			Optional<Constructor<?>> o_result = Arrays.asList(cl.getConstructors()).stream().filter(c -> {
-				return c.canAccess(null) && c.getParameterCount() == 0 && c.isVarArgs() == false;
-			}).findFirst();
-			
-			if (o_result.isPresent()) {
-				return o_result.get();
+		synchronized (lock) {
+			table = binding_table;
+			long version = bind_map.getVersion();
+			if (table == null || table.version != version) {
+				HashMap<String, String> actual_bind_map = new HashMap<>();
+				bind_map.stringPropertyNames().forEach(interface_name -> {
+					actual_bind_map.put(interface_name, bind_map.getProperty(interface_name));
+				});
+				table = new BindingTable(version, actual_bind_map, this::getClassByName);
+				binding_table = table;
 			}
-			
-			return null;
-		});
+			return table;
+		}
+	}
+	
+	/**
+	 * Resolve again all the bindings on the next create, like after a binded JS file deletion.
+	 * Bind map changes are automatically detected, and an unresolved binding (like a JS file created later) is resolved again
+	 * on each create.
+	 * @return this
+	 */
+	public Factory refreshBindMap() {
+		binding_table = null;
+		return this;
+	}
+	
+	/**
+	 * The plan is only resolved one time by class, with all its dependencies plans.
+	 * Plans which depends on interface bindings are resolved again after a bind map change.
+	 */
+	private CreationPlan getCreationPlan(Class<?> from_class) throws ReflectiveOperationException {
+		CreationPlan plan = getCachedCreationPlan(from_class);
+		if (plan != null && plan.isOutdated(getBindingTable()) == false) {
+			statistics.onCreationPlan(true);
+			return plan;
+		}
+		statistics.onCreationPlan(false);
+		return buildCreationPlan(from_class, getBindingTable(), new LinkedHashSet<>());
+	}
+	
+	/**
+	 * Parent plans are used only if they don't depend on bindings, and if this Factory has not declared its own lifecycles.
+	 * @return maybe null
+	 */
+	private CreationPlan getCachedCreationPlan(Class<?> from_class) {
+		CreationPlan plan = creation_plans.get(from_class);
+		if (plan == null && parent != null && has_declared_lifecycles == false) {
+			plan = parent.getCachedCreationPlan(from_class);
+			if (plan != null && plan.binding_table != null) {
+				return null;
+			}
+		}
+		return plan;
+	}
+	
+	/**
+	 * @param in_progress for detect dependency cycles
+	 */
+	private CreationPlan buildCreationPlan(Class<?> from_class, BindingTable table, LinkedHashSet<Class<?>> in_progress) throws ReflectiveOperationException {
+		CreationPlan plan = getCachedCreationPlan(from_class);
+		if (plan != null && plan.isOutdated(table) == false) {
+			return plan;
+		}
 		
-		if (constructor == null) {
-			return from_class.getDeclaredConstructor().newInstance();
+		if (in_progress.add(from_class) == false) {
+			String cycle = in_progress.stream().map(Class::getSimpleName).collect(Collectors.joining(" -> "));
+			throw new ReflectiveOperationException("Dependency cycle: " + cycle + " -> " + from_class.getSimpleName());
 		}
 		
-		@SuppressWarnings("unchecked")
-		T result = (T) constructor.newInstance();
+		Constructor<?> constructor = CreationPlan.selectConstructor(from_class);
+		boolean use_binding_table = false;
+		ArrayList<CreationPlan.Dependency> dependencies = new ArrayList<>(constructor.getParameterCount());
 		
-		if (configurator.isClassIsConfigured(from_class)) {
-			configurator.addNewClassInstanceToConfigure(result, from_class);
+		for (Class<?> parameter_type : constructor.getParameterTypes()) {
+			Class<?> implementation = parameter_type;
+			if (parameter_type.isInterface()) {
+				use_binding_table = true;
+				Binding binding = table.get(parameter_type);
+				if (binding == null) {
+					throw new ClassNotFoundException("Interface " + parameter_type + " (needed by " + from_class.getName() + ") is not binded to a class or JS file");
+				} else if (binding.kind == Kind.UNRESOLVED) {
+					throw new ClassNotFoundException("Interface " + parameter_type + " (needed by " + from_class.getName() + ") is badly binded to \"" + binding.bind_to + "\"");
+				} else if (binding.kind != Kind.JAVA_CLASS) {
+					dependencies.add(new CreationPlan.Dependency(parameter_type, null));
+					continue;
+				} else if (parameter_type.isAssignableFrom(binding.implementation) == false) {
+					throw new ReflectiveOperationException("Class " + binding.implementation + " is not assignable to Interface " + parameter_type);
+				}
+				implementation = binding.implementation;
+			}
+			
+			CreationPlan dependency_plan = buildCreationPlan(implementation, table, in_progress);
+			use_binding_table |= dependency_plan.binding_table != null;
+			
+			if (getLifecycle(parameter_type) != Lifecycle.NEW) {
+				dependencies.add(new CreationPlan.Dependency(parameter_type, null));
+			} else {
+				dependencies.add(new CreationPlan.Dependency(parameter_type, dependency_plan));
+			}
 		}
 		
-		return result;
+		in_progress.remove(from_class);
+		
+		plan = new CreationPlan(from_class, constructor, dependencies, use_binding_table ? table : null);
+		if (log.isDebugEnabled() && dependencies.isEmpty() == false) {
+			log.debug("Creation plan: " + plan);
+		}
+		creation_plans.put(from_class, plan);
+		return plan;
 	}
 	
 	/**
@@ -311,62 +722,159 @@ public class Factory {
 		}
 	}
 	
+	/**
+	 * Only search in the classpath items (jars and directories), with an index.
+	 * @see setClasspathIndexCacheFile
+	 */
 	public List<Class<?>> getAllClassesFromPackage(String package_name) throws ClassNotFoundException {
-		try {
-			ClassPath cp = ClassPath.from(ClassLoader.getSystemClassLoader());
-			ImmutableSet<ClassInfo> packg = cp.getTopLevelClasses(package_name);
-			return packg.stream().map(cl -> {
-				try {
-					return Class.forName(cl.getName());
-				} catch (Exception e) {
-					log.error("Can't load class " + cl.getName(), e);
-					return null;
-				}
-			}).filter(cl -> {
-				return cl != null;
-			}).collect(Collectors.toList());
-		} catch (IOException e) {
-			throw new ClassNotFoundException("Can't search in classpath", e);
-		}
+		return getTopLevelClassNames(package_name).stream().map(class_name -> {
+			try {
+				return Class.forName(class_name);
+			} catch (Exception | LinkageError e) {
+				log.error("Can't load class " + class_name, e);
+				return null;
+			}
+		}).filter(cl -> {
+			return cl != null;
+		}).collect(Collectors.toList());
 	}
 	
-	public GsonKit createGsonKit() {
-		GsonKit g_kit = new GsonKit();
+	/**
+	 * Keep the classpath index in a file, for not scan again all unchanged jars on the next start.
+	 * @param cache_file null for not persist it. Loaded if exists.
+	 * @return this
+	 */
+	public Factory setClasspathIndexCacheFile(File cache_file) throws IOException {
+		classpath_index.setCacheFile(cache_file);
+		return this;
+	}
+	
+	/**
+	 * Classpath items are checked for changes (size and date) after this period. By default, only checked on the first search:
+	 * use invalidateClasspathIndex after a classpath item change.
+	 * @return this
+	 */
+	public Factory setClasspathIndexRevalidationPeriod(long revalidation_period, TimeUnit unit) {
+		classpath_index.setRevalidationPeriod(revalidation_period, unit);
+		return this;
+	}
+	
+	/**
+	 * Scan again this classpath item (jar or directory) on the next search.
+	 * @return this
+	 */
+	public Factory invalidateClasspathIndex(File classpath_item) {
+		classpath_index.invalidate(classpath_item);
+		class_file_scanner.clear();
+		return this;
+	}
+	
+	private List<String> getTopLevelClassNames(String package_name) {
+		long start = System.nanoTime();
+		List<String> result = classpath_index.getTopLevelClassNames(package_name);
+		profile(StartupProfiler.Phase.CLASSPATH_SCAN, package_name, start);
+		return result;
+	}
+	
+	/**
+	 * Read the class files in parallel, and load (without static init) only the classes matching filter.
+	 * @param filter on class files informations, before any class loading.
+	 */
+	public List<Class<?>> findClassesFromPackage(String package_name, Predicate<ClassFileInfo> filter) {
+		if (filter == null) {
+			throw new NullPointerException("\"filter\" can't to be null");
+		}
+		List<String> class_names = class_file_scanner.scan(getTopLevelClassNames(package_name), filter);
 		
-		g_kit.registerGsonSimpleDeSerializer(Class.class, Class.class, src -> {
-			if (src == null) {
-				return null;
-			}
-			return new JsonPrimitive(src.getName());
-		}, json -> {
+		ClassLoader class_loader = Factory.class.getClassLoader();
+		return class_names.stream().map(class_name -> {
 			try {
-				return getClassByName(json.getAsString());
-			} catch (Exception e) {
+				return Class.forName(class_name, false, class_loader);
+			} catch (Exception | LinkageError e) {
+				log.error("Can't load class " + class_name, e);
 				return null;
 			}
+		}).filter(cl -> {
+			return cl != null;
+		}).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Without load or init the classes not annotated.
+	 * @return classes directly annotated by annotation (not inherited)
+	 */
+	public List<Class<?>> findClassesFromPackageAnnotatedWith(String package_name, Class<? extends Annotation> annotation) {
+		String annotation_name = annotation.getName();
+		return findClassesFromPackage(package_name, info -> {
+			return info.getAnnotationNames().contains(annotation_name);
 		});
+	}
+	
+	/**
+	 * Without load or init the classes not extends/implements super_type.
+	 * @return classes extends/implements super_type (directly or not), without super_type.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<Class<? extends T>> findClassesFromPackageSubTypeOf(String package_name, Class<T> super_type) {
+		String super_type_name = super_type.getName();
+		return findClassesFromPackage(package_name, info -> {
+			return class_file_scanner.isSubTypeOf(info, super_type_name);
+		}).stream().map(c -> (Class<? extends T>) c).collect(Collectors.toList());
+	}
+	
+	public GsonKit createGsonKit() {
+		long start = System.nanoTime();
+		GsonKit g_kit = new GsonKit();
+		
+		g_kit.registerGsonSimpleStreamingAdapter(Class.class, GsonKit.makeStringAdapter(Class.class, Class::getName, this::getClassByName));
 		g_kit.rebuildGsonSimple();
 		
+		profile(StartupProfiler.Phase.GSON_KIT, null, start);
 		return g_kit;
 	}
 	
 	/**
-	 * @return js_toolkit common on this Factory instance.
+	 * @return js_toolkit common on this Factory instance (and its children).
 	 */
 	public JsToolkit getJsToolkit() {
+		if (parent != null) {
+			return parent.getJsToolkit();
+		}
 		if (js_toolkit == null) {
 			synchronized (lock) {
-				js_toolkit = new JsToolkit();
+				if (js_toolkit == null) {
+					js_toolkit = new JsToolkit();
+				}
 			}
 		}
 		return js_toolkit;
 	}
 	
+	/**
+	 * @return evaluated JS sources used for create Interfaces binded to JS files/URLs, with the common js_toolkit.
+	 */
+	public JsScriptCache getJsScriptCache() {
+		if (parent != null) {
+			return parent.getJsScriptCache();
+		}
+		if (js_script_cache == null) {
+			JsToolkit toolkit = getJsToolkit();
+			synchronized (lock) {
+				if (js_script_cache == null) {
+					js_script_cache = new JsScriptCache(toolkit);
+				}
+			}
+		}
+		return js_script_cache;
+	}
+	
 	/**
 	 * Formats:
 	 * - package.Interface=package.ClassImplementInterface (simple class)
 	 * - package.Interface=/Path/To/file.js (file)
 	 * - package.Interface=file:/Path/To/file.js (URL)
+	 * Changes are detected and applied on the next create.
+	 * @see refreshBindMap if a JS file is deleted after binding.
 	 */
 	public Properties getBindMap() {
 		return bind_map;
@@ -380,35 +888,480 @@ public class Factory {
 		return this;
 	}
 	
+	/**
+	 * @return the component index (for classes compiled with ComponentIndexProcessor) visible from Factory.
+	 */
+	public ComponentIndex getComponentIndex() {
+		return ComponentIndex.get(Factory.class.getClassLoader());
+	}
+	
+	/**
+	 * Use the component index if the class is indexed, else its annotations.
+	 */
+	private static boolean isSingleInstance(Class<?> from_class_or_interface) {
+		Boolean indexed = ComponentIndex.get(from_class_or_interface).isSingleInstance(from_class_or_interface);
+		if (indexed != null) {
+			return indexed;
+		}
+		return from_class_or_interface.getAnnotation(SingleInstance.class) != null;
+	}
+	
+	private static boolean isLazySingleInstance(Class<?> from_interface) {
+		Boolean indexed = ComponentIndex.get(from_interface).isLazySingleInstance(from_interface);
+		if (indexed != null) {
+			return indexed;
+		}
+		SingleInstance single_instance = from_interface.getAnnotation(SingleInstance.class);
+		return single_instance != null && single_instance.lazy();
+	}
+	
+	/**
+	 * Only by annotations. Lazy is ignored for classes.
+	 */
+	private static Lifecycle readLifecycle(Class<?> from_class_or_interface) {
+		if (isSingleInstance(from_class_or_interface)) {
+			if (from_class_or_interface.isInterface() && isLazySingleInstance(from_class_or_interface)) {
+				return Lifecycle.LAZY_SINGLE_INSTANCE;
+			}
+			return Lifecycle.SINGLE_INSTANCE;
+		} else if (from_class_or_interface.getAnnotation(ThreadInstance.class) != null) {
+			return Lifecycle.THREAD_INSTANCE;
+		} else if (from_class_or_interface.getAnnotation(PooledInstance.class) != null) {
+			return Lifecycle.POOLED_INSTANCE;
+		}
+		return Lifecycle.NEW;
+	}
+	
+	/**
+	 * Resolved one time by class.
+	 */
+	private Lifecycle getLifecycle(Class<?> from_class_or_interface) {
+		Lifecycle lifecycle = lifecycles.get(from_class_or_interface);
+		if (lifecycle != null) {
+			return lifecycle;
+		} else if (parent != null) {
+			return parent.getLifecycle(from_class_or_interface);
+		}
+		return lifecycles.computeIfAbsent(from_class_or_interface, Factory::readLifecycle);
+	}
+	
+	/**
+	 * Like a ThreadInstance annotation on this class/interface.
+	 * @return this
+	 */
+	public Factory declareThreadInstance(Class<?> from_class_or_interface) {
+		declareLifecycle(from_class_or_interface, Lifecycle.THREAD_INSTANCE);
+		return this;
+	}
+	
+	/**
+	 * Like a PooledInstance annotation on this class/interface.
+	 * @return this
+	 */
+	public <T> Factory declarePooledInstance(Class<T> from_class_or_interface, int max_size, long idle_timeout, long max_wait, TimeUnit unit) {
+		pools.put(from_class_or_interface, new InstancePool<>(from_class_or_interface, () -> createNewInstance(from_class_or_interface), max_size, idle_timeout, max_wait, unit));
+		declareLifecycle(from_class_or_interface, Lifecycle.POOLED_INSTANCE);
+		return this;
+	}
+	
+	private void declareLifecycle(Class<?> from_class_or_interface, Lifecycle lifecycle) {
+		if (from_class_or_interface == null) {
+			throw new NullPointerException("\"from_class_or_interface\" can't to be null");
+		}
+		lifecycles.put(from_class_or_interface, lifecycle);
+		has_declared_lifecycles = true;
+		/**
+		 * Plans which depend on this class must call create now.
+		 */
+		creation_plans.clear();
+	}
+	
+	/**
+	 * A child Factory uses its parent pools, if it has not declared its own pool.
+	 * @return null if from_class_or_interface is not a PooledInstance
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> InstancePool<T> getPool(Class<T> from_class_or_interface) {
+		if (getLifecycle(from_class_or_interface) != Lifecycle.POOLED_INSTANCE) {
+			return null;
+		}
+		InstancePool<T> declared = (InstancePool<T>) pools.get(from_class_or_interface);
+		if (declared != null) {
+			return declared;
+		} else if (parent != null && lifecycles.containsKey(from_class_or_interface) == false) {
+			return parent.getPool(from_class_or_interface);
+		}
+		return (InstancePool<T>) pools.computeIfAbsent(from_class_or_interface, c -> {
+			PooledInstance conf = from_class_or_interface.getAnnotation(PooledInstance.class);
+			return new InstancePool<>(from_class_or_interface, () -> createNewInstance(from_class_or_interface), conf.maxSize(), conf.idleTimeout(), conf.maxWait(), conf.unit());
+		});
+	}
+	
+	/**
+	 * @return all actual pools, for get their metrics
+	 */
+	public List<InstancePool<?>> getPools() {
+		return new ArrayList<>(pools.values());
+	}
+	
+	/**
+	 * Give back to its pool an Object borrowed by create.
+	 * @return false if it's not a borrowed Object
+	 */
+	public boolean giveBack(Object pooled_instance) {
+		if (pooled_instance == null) {
+			return false;
+		}
+		InstancePool<?> pool = pools.get(pooled_instance.getClass());
+		if (pool != null && pool.giveBack(pooled_instance)) {
+			return true;
+		}
+		if (pools.values().stream().anyMatch(p -> p != pool && p.giveBack(pooled_instance))) {
+			return true;
+		}
+		return parent != null && parent.giveBack(pooled_instance);
+	}
+	
+	/**
+	 * Forget all ThreadInstance Objects created for the current thread, like before return a thread to a thread pool.
+	 * @return this
+	 */
+	public Factory removeThreadInstances() {
+		thread_instances.remove();
+		return this;
+	}
+	
+	private <T> T getThreadInstance(Class<T> from_class_or_interface) throws ReflectiveOperationException {
+		HashMap<Class<?>, Object> instances = thread_instances.get();
+		Object result = instances.get(from_class_or_interface);
+		if (result == null) {
+			/**
+			 * Not computeIfAbsent: this creation can create others ThreadInstance.
+			 */
+			result = createNewInstance(from_class_or_interface);
+			instances.put(from_class_or_interface, result);
+		}
+		return from_class_or_interface.cast(result);
+	}
+	
+	private <T> T borrowPooledInstance(Class<T> from_class_or_interface) throws ReflectiveOperationException {
+		try {
+			return getPool(from_class_or_interface).borrow();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ReflectiveOperationException("Interrupted during the wait of a " + from_class_or_interface.getName(), e);
+		} catch (TimeoutException e) {
+			throw new ReflectiveOperationException("Can't borrow a " + from_class_or_interface.getName(), e);
+		}
+	}
+	
 	/**
 	 * @see getBindMap to put Interface <-> java class/js file (with JsToolkit)
 	 * @see SingleInstance Annotation
+	 * @see ThreadInstance Annotation
+	 * @see PooledInstance Annotation, and giveBack
 	 */
 	public <T> T create(Class<T> from_class_or_interface) throws ReflectiveOperationException {
 		checkIsAccessibleClass(from_class_or_interface, true);
 		
-		SingleInstance single_instance_annotation = from_class_or_interface.getAnnotation(SingleInstance.class);
+		FactoryCreateEvent event = new FactoryCreateEvent();
+		event.begin();
+		recordClass(from_class_or_interface);
+		Lifecycle lifecycle = getLifecycle(from_class_or_interface);
+		T result = create(from_class_or_interface, lifecycle);
+		commit(event, from_class_or_interface, lifecycle, 1);
+		return result;
+	}
+	
+	private static void commit(FactoryCreateEvent event, Class<?> from_class_or_interface, Lifecycle lifecycle, int instance_count) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.class_name = from_class_or_interface.getName();
+			event.lifecycle = lifecycle.name();
+			event.instance_count = instance_count;
+			event.commit();
+		}
+	}
+	
+	private Object createSingleInstance(Class<?> single_instance_class) throws ReflectiveOperationException {
+		long start = System.nanoTime();
+		Object result = createNewInstance(single_instance_class);
+		profile(StartupProfiler.Phase.SINGLE_INSTANCE, single_instance_class.getName(), start);
+		return result;
+	}
+	
+	private <T> T create(Class<T> from_class_or_interface, Lifecycle lifecycle) throws ReflectiveOperationException {
+		switch (lifecycle) {
+		case SINGLE_INSTANCE:
+			return from_class_or_interface.cast(single_instances.get(from_class_or_interface, this::createSingleInstance));
+		case LAZY_SINGLE_INSTANCE:
+			return from_class_or_interface.cast(single_instances.get(from_class_or_interface, interface_class -> {
+				return LazySingleInstance.createProxy(interface_class, this::createSingleInstance);
+			}));
+		case THREAD_INSTANCE:
+			return getThreadInstance(from_class_or_interface);
+		case POOLED_INSTANCE:
+			return borrowPooledInstance(from_class_or_interface);
+		default:
+			return createNewInstance(from_class_or_interface);
+		}
+	}
+	
+	/**
+	 * Like create, but for a lot of instances: the binding, the constructor and the class configuration are resolved only
+	 * one time. For not NEW lifecycles (SingleInstance...), it's like call create count times.
+	 * @return a modifiable list of count instances
+	 */
+	public <T> List<T> createMany(Class<T> from_class_or_interface, int count) throws ReflectiveOperationException {
+		checkIsAccessibleClass(from_class_or_interface, true);
+		if (count < 0) {
+			throw new IllegalArgumentException("Invalid count: " + count);
+		}
+		
+		ArrayList<T> result = new ArrayList<>(count);
+		if (count == 0) {
+			return result;
+		}
+		
+		FactoryCreateEvent event = new FactoryCreateEvent();
+		event.begin();
+		recordClass(from_class_or_interface);
+		Lifecycle lifecycle = getLifecycle(from_class_or_interface);
+		if (lifecycle != Lifecycle.NEW) {
+			for (int pos = 0; pos < count; pos++) {
+				result.add(create(from_class_or_interface, lifecycle));
+			}
+			commit(event, from_class_or_interface, lifecycle, count);
+			return result;
+		}
 		
-		if (single_instance_annotation != null) {
+		boolean timed = statistics.isCreationStatisticsEnabled();
+		long start = timed ? System.nanoTime() : 0;
+		/** Each instance is timed alone, for a real latency distribution */
+		long instances_time = 0;
+		Class<? extends T> from_class = getImplementation(from_class_or_interface);
+		CreationPlan plan = from_class == null ? null : getCreationPlan(from_class);
+		for (int pos = 0; pos < count; pos++) {
+			long instance_start = timed ? System.nanoTime() : 0;
+			if (plan == null) {
+				result.add(createFromJs(from_class_or_interface));
+			} else {
+				result.add(from_class_or_interface.cast(instantiate(plan)));
+			}
+			if (timed) {
+				long instance_time = System.nanoTime() - instance_start;
+				instances_time += instance_time;
+				statistics.onCreated(from_class_or_interface, instance_time);
+			}
+		}
+		
+		if (plan != null && isClassIsConfigured(plan.target_class)) {
 			@SuppressWarnings("unchecked")
-			T result = (T) single_instances.computeIfAbsent(from_class_or_interface, class_to_instance -> {
-				try {
-					return createNewInstance(class_to_instance);
-				} catch (ReflectiveOperationException e) {
-					throw new RuntimeException("Can't instance SingleInstance " + from_class_or_interface.getSimpleName(), e);
+			Class<T> target_class = (Class<T>) plan.target_class;
+			getConfigurator().addNewClassInstancesToConfigure(result, target_class);
+			statistics.onConfigured(count);
+		}
+		if (timed) {
+			statistics.onCreationOverhead(from_class_or_interface, System.nanoTime() - start - instances_time);
+		}
+		commit(event, from_class_or_interface, lifecycle, count);
+		return result;
+	}
+	
+	/**
+	 * Call create on the async executor.
+	 * @see setAsyncExecutor
+	 * @return the CompletableFuture will be completed with a ReflectiveOperationException (in a CompletionException) if the creation fails.
+	 */
+	public <T> CompletableFuture<T> createAsync(Class<T> from_class_or_interface) {
+		return createAsync(from_class_or_interface, getAsyncExecutor());
+	}
+	
+	/**
+	 * Call create on executor.
+	 * @return the CompletableFuture will be completed with a ReflectiveOperationException (in a CompletionException) if the creation fails.
+	 */
+	public <T> CompletableFuture<T> createAsync(Class<T> from_class_or_interface, Executor executor) {
+		if (from_class_or_interface == null) {
+			throw new NullPointerException("\"from_class_or_interface\" can't to be null");
+		}
+		if (executor == null) {
+			throw new NullPointerException("\"executor\" can't to be null");
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return create(from_class_or_interface);
+			} catch (ReflectiveOperationException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+	
+	/**
+	 * @param executor used by createAsync. Default is the common ForkJoinPool (or the parent Factory executor).
+	 * @return this
+	 */
+	public Factory setAsyncExecutor(Executor executor) {
+		if (executor == null) {
+			throw new NullPointerException("\"executor\" can't to be null");
+		}
+		async_executor = executor;
+		return this;
+	}
+	
+	public Executor getAsyncExecutor() {
+		Executor executor = async_executor;
+		if (executor != null) {
+			return executor;
+		} else if (parent != null) {
+			return parent.getAsyncExecutor();
+		}
+		return ForkJoinPool.commonPool();
+	}
+	
+	/**
+	 * Create all SingleInstance classes in parallel (on the common ForkJoinPool), in dependency order.
+	 * @param single_instance_classes not SingleInstance classes are ignored.
+	 * @return this
+	 */
+	public Factory warmUpSingleInstances(Collection<Class<?>> single_instance_classes) throws ReflectiveOperationException {
+		return warmUpSingleInstances(single_instance_classes, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Create all SingleInstance classes in parallel, in dependency order: a class is created only after all the SingleInstance
+	 * classes needed by its constructor (directly or not).
+	 * @param single_instance_classes not SingleInstance classes are ignored.
+	 * @return this
+	 */
+	public Factory warmUpSingleInstances(Collection<Class<?>> single_instance_classes, Executor executor) throws ReflectiveOperationException {
+		if (single_instance_classes == null) {
+			throw new NullPointerException("\"single_instance_classes\" can't to be null");
+		}
+		if (executor == null) {
+			throw new NullPointerException("\"executor\" can't to be null");
+		}
+		List<Class<?>> to_create = single_instance_classes.stream().filter(Factory::isSingleInstance).collect(Collectors.toList());
+		
+		new SingletonWarmUp(executor, this::create, this::getSingleInstanceDependencies).run(to_create);
+		return this;
+	}
+	
+	/**
+	 * Search all SingleInstance classes (without load the others classes) in packages, and create them.
+	 * @return this
+	 */
+	public Factory warmUpSingleInstancesFromPackages(String... package_names) throws ReflectiveOperationException {
+		ArrayList<Class<?>> single_instance_classes = new ArrayList<>();
+		for (String package_name : package_names) {
+			single_instance_classes.addAll(findClassesFromPackageAnnotatedWith(package_name, SingleInstance.class));
+		}
+		return warmUpSingleInstances(single_instance_classes);
+	}
+	
+	/**
+	 * @return SingleInstance classes needed by the constructor, directly or via a not SingleInstance constructor parameter.
+	 */
+	private Set<Class<?>> getSingleInstanceDependencies(Class<?> single_instance_class) throws ReflectiveOperationException {
+		Class<?> from_class = single_instance_class;
+		if (single_instance_class.isInterface()) {
+			Binding binding = getBindingTable().get(single_instance_class);
+			if (isLazySingleInstance(single_instance_class) || binding == null || binding.kind != Kind.JAVA_CLASS) {
+				return Collections.emptySet();
+			}
+			from_class = binding.implementation;
+		}
+		
+		LinkedHashSet<Class<?>> result = new LinkedHashSet<>();
+		ArrayList<CreationPlan> to_walk = new ArrayList<>();
+		to_walk.add(getCreationPlan(from_class));
+		while (to_walk.isEmpty() == false) {
+			to_walk.remove(to_walk.size() - 1).dependencies.forEach(dependency -> {
+				if (dependency.plan != null) {
+					to_walk.add(dependency.plan);
+				} else if (isSingleInstance(dependency.type)) {
+					result.add(dependency.type);
 				}
 			});
-			
-			return result;
 		}
-		
-		return createNewInstance(from_class_or_interface);
+		return result;
 	}
 	
+	/**
+	 * Created on the first call (with its GsonKit).
+	 */
 	public ConfigurationUtility getConfigurator() {
+		if (configurator == null) {
+			synchronized (lock) {
+				if (configurator == null) {
+					long start = System.nanoTime();
+					if (parent == null) {
+						configurator = new ConfigurationUtility(this);
+					} else {
+						configurator = new ConfigurationUtility(this, parent.getConfigurator());
+					}
+					profile(StartupProfiler.Phase.CONFIGURATOR, null, start);
+				}
+			}
+		}
 		return configurator;
 	}
 	
+	/**
+	 * Don't create the configurator if it's not already done.
+	 */
+	private boolean isClassIsConfigured(Class<?> reference_class) {
+		ConfigurationUtility actual = configurator;
+		if (actual != null) {
+			return actual.isClassIsConfigured(reference_class);
+		}
+		return parent != null && parent.isClassIsConfigured(reference_class);
+	}
+	
+	/**
+	 * @return creation counts and latencies, and internal caches counters. Always updated, even if not registered in JMX.
+	 */
+	public FactoryMXBean getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Register this Factory statistics in the platform MBeanServer, as "tv.hd3g.divergentframework.factory:type=Factory,name=...".
+	 * Don't forget to unregister it, else this Factory will be never garbage collected.
+	 * @param name null for an automatic name
+	 * @return the registered name
+	 */
+	public synchronized ObjectName registerMXBean(String name) throws JMException {
+		if (mxbean_name != null) {
+			return mxbean_name;
+		}
+		if (name == null) {
+			name = "factory-" + factory_count.incrementAndGet();
+		}
+		ObjectName object_name = new ObjectName(Factory.class.getPackageName() + ":type=Factory,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, object_name);
+		mxbean_name = object_name;
+		return object_name;
+	}
+	
+	/**
+	 * @return the registered name, with an automatic name.
+	 */
+	public ObjectName registerMXBean() throws JMException {
+		return registerMXBean(null);
+	}
+	
+	/**
+	 * Do nothing if not registered.
+	 */
+	public synchronized void unregisterMXBean() throws JMException {
+		if (mxbean_name == null) {
+			return;
+		}
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(mxbean_name);
+		mxbean_name = null;
+	}
+	
 	/**
 	 * A simple shortcut for WatchFolder creation.
 	 * You should set global executor and sch_service.
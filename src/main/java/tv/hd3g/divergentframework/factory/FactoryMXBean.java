@@ -0,0 +1,92 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.List;
+
+/**
+ * JMX view of a Factory internal caches and creations.
+ * @see Factory#registerMXBean()
+ */
+public interface FactoryMXBean {
+	
+	boolean isCreationStatisticsEnabled();
+	
+	/**
+	 * Enabled by default. If disabled, creations are not timed, and created counts and creation statistics are not updated.
+	 * A child Factory starts with the parent value.
+	 */
+	void setCreationStatisticsEnabled(boolean enabled);
+	
+	/**
+	 * @return new instances created (and not taken from a SingleInstance, ThreadInstance or pool)
+	 */
+	long getCreatedCount();
+	
+	/**
+	 * @return by requested class or interface
+	 */
+	List<CreationStatistics> getCreationStatistics();
+	
+	/**
+	 * @return class names found in the class name cache
+	 */
+	long getClassNameHitCount();
+	
+	/**
+	 * @return class names not in the class name cache, and loaded
+	 */
+	long getClassNameLoadCount();
+	
+	/**
+	 * @return class names found in the class name cache as absent
+	 */
+	long getAbsentClassNameHitCount();
+	
+	/**
+	 * @return class names not in the class name cache, and not found
+	 */
+	long getAbsentClassNameLoadCount();
+	
+	/**
+	 * @return absent class names actually kept in the class name cache
+	 */
+	int getAbsentClassNameCount();
+	
+	/**
+	 * @return creations with an already resolved constructor and dependencies
+	 */
+	long getCreationPlanHitCount();
+	
+	/**
+	 * @return creations which have needed to resolve the constructor and dependencies
+	 */
+	long getCreationPlanMissCount();
+	
+	int getSingleInstanceCount();
+	
+	/**
+	 * @return created instances which have been configured
+	 */
+	long getConfiguredInstanceCount();
+	
+	/**
+	 * Reset creation counts and latencies, and cache counts.
+	 */
+	void resetStatistics();
+	
+}
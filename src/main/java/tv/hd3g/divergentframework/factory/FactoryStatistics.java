@@ -0,0 +1,184 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Lock free counters of a Factory, exposed by JMX.
+ * Classes are kept by name, for not keep a reference to the classes (and its ClassLoader).
+ */
+class FactoryStatistics implements FactoryMXBean {
+	
+	private final ClassNameResolver class_names;
+	private final SingletonRegistry single_instances;
+	
+	private final ConcurrentHashMap<String, ClassCounters> creations;
+	private final LongAdder plan_hits;
+	private final LongAdder plan_misses;
+	private final LongAdder configured_instances;
+	private volatile boolean creation_statistics_enabled;
+	
+	/**
+	 * Class name cache counters are shared between Factories (parent and children), so they are reset relatively.
+	 */
+	private volatile long class_name_hits_base;
+	private volatile long class_name_loads_base;
+	private volatile long absent_class_name_hits_base;
+	private volatile long absent_class_name_loads_base;
+	
+	FactoryStatistics(ClassNameResolver class_names, SingletonRegistry single_instances) {
+		this.class_names = class_names;
+		this.single_instances = single_instances;
+		creations = new ConcurrentHashMap<>();
+		plan_hits = new LongAdder();
+		plan_misses = new LongAdder();
+		configured_instances = new LongAdder();
+		creation_statistics_enabled = true;
+	}
+	
+	private static class ClassCounters {
+		final LongAdder count;
+		/**
+		 * In nanoseconds, for not lose the sub-µs creations.
+		 */
+		final LongAdder total_time;
+		final LongAccumulator max_time;
+		final LongAdder[] latency_histogram;
+		
+		ClassCounters() {
+			count = new LongAdder();
+			total_time = new LongAdder();
+			max_time = new LongAccumulator(Math::max, 0);
+			latency_histogram = new LongAdder[CreationStatistics.LATENCY_BOUNDS.length + 1];
+			for (int pos = 0; pos < latency_histogram.length; pos++) {
+				latency_histogram[pos] = new LongAdder();
+			}
+		}
+	}
+	
+	/**
+	 * @param duration for one created instance, in nanoseconds
+	 */
+	void onCreated(Class<?> from_class_or_interface, long duration) {
+		ClassCounters counters = creations.computeIfAbsent(from_class_or_interface.getName(), n -> new ClassCounters());
+		long duration_us = TimeUnit.NANOSECONDS.toMicros(duration);
+		
+		counters.count.increment();
+		counters.total_time.add(duration);
+		counters.max_time.accumulate(duration_us);
+		counters.latency_histogram[CreationStatistics.getLatencySlot(duration_us)].increment();
+	}
+	
+	/**
+	 * Shared by a createMany batch (binding, creation plan, configuration): only added to the total time.
+	 * @param duration in nanoseconds
+	 */
+	void onCreationOverhead(Class<?> from_class_or_interface, long duration) {
+		ClassCounters counters = creations.computeIfAbsent(from_class_or_interface.getName(), n -> new ClassCounters());
+		counters.total_time.add(duration);
+	}
+	
+	void onCreationPlan(boolean hit) {
+		if (hit) {
+			plan_hits.increment();
+		} else {
+			plan_misses.increment();
+		}
+	}
+	
+	void onConfigured(int instance_count) {
+		configured_instances.add(instance_count);
+	}
+	
+	public boolean isCreationStatisticsEnabled() {
+		return creation_statistics_enabled;
+	}
+	
+	public void setCreationStatisticsEnabled(boolean enabled) {
+		creation_statistics_enabled = enabled;
+	}
+	
+	public long getCreatedCount() {
+		return creations.values().stream().mapToLong(counters -> counters.count.sum()).sum();
+	}
+	
+	public List<CreationStatistics> getCreationStatistics() {
+		return creations.entrySet().stream().map(entry -> {
+			ClassCounters counters = entry.getValue();
+			long[] histogram = new long[counters.latency_histogram.length];
+			for (int pos = 0; pos < histogram.length; pos++) {
+				histogram[pos] = counters.latency_histogram[pos].sum();
+			}
+			return new CreationStatistics(entry.getKey(), counters.count.sum(), TimeUnit.NANOSECONDS.toMicros(counters.total_time.sum()), counters.max_time.get(), histogram);
+		}).sorted(Comparator.comparing(CreationStatistics::getClassName)).collect(Collectors.toList());
+	}
+	
+	public long getClassNameHitCount() {
+		return class_names.getHitCount() - class_name_hits_base;
+	}
+	
+	public long getClassNameLoadCount() {
+		return class_names.getLoadCount() - class_name_loads_base;
+	}
+	
+	public long getAbsentClassNameHitCount() {
+		return class_names.getAbsentHitCount() - absent_class_name_hits_base;
+	}
+	
+	public long getAbsentClassNameLoadCount() {
+		return class_names.getAbsentLoadCount() - absent_class_name_loads_base;
+	}
+	
+	public int getAbsentClassNameCount() {
+		return class_names.getAbsentCount();
+	}
+	
+	public long getCreationPlanHitCount() {
+		return plan_hits.sum();
+	}
+	
+	public long getCreationPlanMissCount() {
+		return plan_misses.sum();
+	}
+	
+	public int getSingleInstanceCount() {
+		return single_instances.size();
+	}
+	
+	public long getConfiguredInstanceCount() {
+		return configured_instances.sum();
+	}
+	
+	public void resetStatistics() {
+		creations.clear();
+		plan_hits.reset();
+		plan_misses.reset();
+		configured_instances.reset();
+		class_name_hits_base = class_names.getHitCount();
+		class_name_loads_base = class_names.getLoadCount();
+		absent_class_name_hits_base = class_names.getAbsentHitCount();
+		absent_class_name_loads_base = class_names.getAbsentLoadCount();
+	}
+	
+}
@@ -19,16 +19,20 @@ package tv.hd3g.divergentframework.factory;
 import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,11 +41,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 
 import org.apache.log4j.Logger;
@@ -52,13 +58,18 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 public class GsonKit {
 	
@@ -82,6 +93,14 @@ public class GsonKit {
 	private class De_Serializator {
 		private Type type;
 		private Object typeAdapter;
+		/**
+		 * Previous registration for the same type, used for the missing direction (serializer or deserializer only).
+		 */
+		private De_Serializator previous;
+		
+		private boolean isComplete() {
+			return typeAdapter instanceof TypeAdapter<?> || typeAdapter instanceof JsonSerializer<?> && typeAdapter instanceof JsonDeserializer<?>;
+		}
 		
 		private <T> De_Serializator(Type type, GsonDeSerializer<T> typeAdapter) {
 			
@@ -122,6 +141,67 @@ public class GsonKit {
 			}
 		}
 		
+		/**
+		 * Like GsonBuilder.registerTypeAdapter: a missing serializer or deserializer uses the previous registration for this type,
+		 * else the next Gson adapter. Tree adapters are called without context.
+		 */
+		@SuppressWarnings("unchecked")
+		private <T> TypeAdapter<T> getTypeAdapter(Gson gson, TypeAdapterFactory skip_past, TypeToken<T> type) {
+			if (typeAdapter instanceof TypeAdapter<?>) {
+				return (TypeAdapter<T>) typeAdapter;
+			}
+			
+			JsonSerializer<T> serializer = typeAdapter instanceof JsonSerializer<?> ? (JsonSerializer<T>) typeAdapter : null;
+			JsonDeserializer<T> deserializer = typeAdapter instanceof JsonDeserializer<?> ? (JsonDeserializer<T>) typeAdapter : null;
+			TypeAdapter<JsonElement> tree_adapter = gson.getAdapter(JsonElement.class);
+			
+			return new TypeAdapter<T>() {
+				private volatile TypeAdapter<T> delegate;
+				
+				private TypeAdapter<T> getDelegate() {
+					TypeAdapter<T> result = delegate;
+					if (result == null) {
+						if (previous != null) {
+							result = previous.getTypeAdapter(gson, skip_past, type);
+						} else {
+							result = gson.getDelegateAdapter(skip_past, type);
+						}
+						delegate = result;
+					}
+					return result;
+				}
+				
+				public void write(JsonWriter out, T value) throws IOException {
+					if (serializer == null) {
+						getDelegate().write(out, value);
+					} else if (value == null) {
+						out.nullValue();
+					} else {
+						JsonElement tree = serializer.serialize(value, type.getType(), null);
+						tree_adapter.write(out, tree == null ? JsonNull.INSTANCE : tree);
+					}
+				}
+				
+				public T read(JsonReader in) throws IOException {
+					if (deserializer == null) {
+						return getDelegate().read(in);
+					}
+					JsonElement tree = tree_adapter.read(in);
+					if (tree.isJsonNull()) {
+						return null;
+					}
+					return deserializer.deserialize(tree, type.getType(), null);
+				}
+			};
+		}
+		
+		private <T> De_Serializator(Type type, TypeAdapter<T> typeAdapter) {
+			log.debug("Declare streaming adapter " + type.getTypeName());
+			
+			this.type = type;
+			this.typeAdapter = typeAdapter;
+		}
+		
 		private <T> De_Serializator(Type type, JsonDeserializer<T> typeAdapter) {
 			log.debug("Declare deserializer " + type.getTypeName());
 			
@@ -137,10 +217,39 @@ public class GsonKit {
 		}
 	}
 	
+	/**
+	 * Adapters added after the Gson creation, without rebuild it, read from an immutable snapshot.
+	 * Gson keeps the adapter found for each type, so only the types never asked to this factory can be added later.
+	 */
+	private class RegistryAdapterFactory implements TypeAdapterFactory {
+		private final Set<TypeToken<?>> asked_types;
+		
+		private RegistryAdapterFactory() {
+			asked_types = ConcurrentHashMap.newKeySet();
+		}
+		
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+			asked_types.add(type);
+			De_Serializator ser = gson_full_serializator.get(type.getType());
+			if (ser == null) {
+				return null;
+			}
+			return ser.getTypeAdapter(gson, this, type);
+		}
+		
+		private boolean isAsked(Type type) {
+			return asked_types.contains(TypeToken.get(type));
+		}
+	}
+	
 	private GsonIgnoreStrategy ignore_strategy;
-	private Gson gson_simple;
+	private volatile Gson gson_simple;
 	private ArrayList<De_Serializator> gson_simple_serializator;
-	private ArrayList<De_Serializator> gson_full_serializator;
+	/**
+	 * Copy on write, by canonical type (like TypeToken)
+	 */
+	private volatile Map<Type, De_Serializator> gson_full_serializator;
+	private RegistryAdapterFactory registry_adapter_factory;
 	private boolean full_pretty_printing = false;
 	public static final JsonParser parser = new JsonParser();
 	
@@ -151,7 +260,7 @@ public class GsonKit {
 		ignore_strategy = new GsonIgnoreStrategy();
 		
 		gson_simple_serializator = new ArrayList<>();
-		gson_full_serializator = new ArrayList<>();
+		gson_full_serializator = Collections.emptyMap();
 		
 		/**
 		 * JsonArray
@@ -190,131 +299,135 @@ public class GsonKit {
 		/**
 		 * InetAddress
 		 */
-		registerGsonSimpleDeSerializer(InetAddress.class, InetAddress.class, src -> {
-			return new JsonPrimitive(src.getHostAddress());
-		}, json -> {
-			try {
-				return InetAddress.getByName(json.getAsString());
-			} catch (UnknownHostException e) {
-				throw new JsonParseException(json.getAsString(), e);
-			}
-		});
+		registerGsonSimpleStreamingAdapter(InetAddress.class, makeStringAdapter(InetAddress.class, src -> {
+			return src.getHostAddress();
+		}, InetAddress::getByName));
 		
 		/**
 		 * InetSocketAddress
 		 */
-		registerGsonSimpleDeSerializer(InetSocketAddress.class, InetSocketAddress.class, src -> {
-			JsonObject jo = new JsonObject();
-			jo.addProperty("addr", src.getHostString());
-			jo.addProperty("port", src.getPort());
-			return jo;
-		}, json -> {
-			JsonObject jo = json.getAsJsonObject();
-			return new InetSocketAddress(jo.get("addr").getAsString(), jo.get("port").getAsInt());
+		registerGsonSimpleStreamingAdapter(InetSocketAddress.class, new TypeAdapter<InetSocketAddress>() {
+			public void write(JsonWriter out, InetSocketAddress src) throws IOException {
+				out.beginObject();
+				out.name("addr").value(src.getHostString());
+				out.name("port").value(src.getPort());
+				out.endObject();
+			}
+			
+			public InetSocketAddress read(JsonReader in) throws IOException {
+				if (in.peek() != JsonToken.BEGIN_OBJECT) {
+					log.error("Can't deserialize from " + InetSocketAddress.class.getName() + ", an object is expected instead of " + in.peek());
+					in.skipValue();
+					return null;
+				}
+				
+				String addr = null;
+				int port = -1;
+				in.beginObject();
+				while (in.hasNext()) {
+					String name = in.nextName();
+					if (name.equals("addr")) {
+						addr = nextString(in, InetSocketAddress.class);
+					} else if (name.equals("port") && in.peek() == JsonToken.NUMBER) {
+						port = in.nextInt();
+					} else {
+						in.skipValue();
+					}
+				}
+				in.endObject();
+				
+				try {
+					return new InetSocketAddress(addr, port);
+				} catch (RuntimeException e) {
+					log.error("Can't deserialize from " + InetSocketAddress.class.getName(), e);
+					return null;
+				}
+			}
 		});
 		
 		/**
 		 * URL
 		 */
-		registerGsonSimpleDeSerializer(URL.class, URL.class, src -> {
-			return new JsonPrimitive(src.toString());
-		}, json -> {
-			try {
-				return new URL(json.getAsString());
-			} catch (MalformedURLException e) {
-				throw new JsonParseException(json.getAsString(), e);
-			}
-		});
+		registerGsonSimpleStreamingAdapter(URL.class, makeStringAdapter(URL.class, URL::toString, URL::new));
 		
 		/**
 		 * File
 		 */
-		registerGsonSimpleDeSerializer(File.class, File.class, src -> {
-			return new JsonPrimitive(src.getPath());
-		}, json -> {
-			return new File(json.getAsString());
-		});
+		registerGsonSimpleStreamingAdapter(File.class, makeStringAdapter(File.class, File::getPath, File::new));
 		
 		/**
 		 * Path (in default file system)
 		 */
-		registerGsonSimpleDeSerializer(Path.class, Path.class, src -> {
-			return new JsonPrimitive(src.toFile().getPath());
+		registerGsonSimpleStreamingAdapter(Path.class, makeStringAdapter(Path.class, src -> {
+			return src.toFile().getPath();
 		}, json -> {
-			return new File(json.getAsString()).toPath();
-		});
+			return new File(json).toPath();
+		}));
 		
 		/**
 		 * Date <-> unixtime
 		 */
-		registerGsonSimpleDeSerializer(Date.class, Date.class, src -> {
-			return new JsonPrimitive(src.getTime());
-		}, json -> {
-			return new Date(json.getAsLong());
+		registerGsonSimpleStreamingAdapter(Date.class, new TypeAdapter<Date>() {
+			public void write(JsonWriter out, Date src) throws IOException {
+				out.value(src.getTime());
+			}
+			
+			public Date read(JsonReader in) throws IOException {
+				String value = nextString(in, Date.class);
+				if (value == null) {
+					return null;
+				}
+				try {
+					/**
+					 * Like JsonElement.getAsLong, accept 1.5E12 or 1234.5
+					 */
+					return new Date(new BigDecimal(value).longValue());
+				} catch (NumberFormatException e) {
+					log.error("Can't deserialize from " + Date.class.getName(), e);
+					return null;
+				}
+			}
 		});
 		
 		/**
 		 * Properties
 		 */
-		registerGsonSimpleDeSerializer(Properties.class, Properties.class, src -> {
+		registerGsonSimpleStreamingAdapter(Properties.class, makeStringAdapter(Properties.class, src -> {
 			StringWriter pw = new StringWriter();
-			try {
-				src.store(pw, null);
-			} catch (IOException e) {
-				log.warn("Can't serialize properties", e);
-			}
+			src.store(pw, null);
 			pw.flush();
-			
-			return new JsonPrimitive(pw.toString());
+			return pw.toString();
 		}, json -> {
 			Properties result = new Properties();
-			StringReader sr = new StringReader(json.getAsString());
-			try {
-				result.load(sr);
-			} catch (IOException e) {
-				log.warn("Can't deserialize properties", e);
-			}
-			
+			result.load(new StringReader(json));
 			return result;
-		});
+		}));
 		
 		/**
 		 * InternetAddress
 		 */
-		registerGsonSimpleDeSerializer(InternetAddress.class, InternetAddress.class, src -> {
-			return new JsonPrimitive(src.toString());
-		}, json -> {
-			try {
-				return new InternetAddress(json.getAsString());
-			} catch (AddressException e) {
-				throw new JsonParseException(json.getAsString(), e);
-			}
-		});
+		registerGsonSimpleStreamingAdapter(InternetAddress.class, makeStringAdapter(InternetAddress.class, InternetAddress::toString, InternetAddress::new));
 		
 		/**
 		 * Locale
 		 */
-		registerGsonSimpleDeSerializer(Locale.class, Locale.class, src -> {
-			return new JsonPrimitive(src.toLanguageTag());
-		}, json -> {
-			return Locale.forLanguageTag(json.getAsString());
-		});
+		registerGsonSimpleStreamingAdapter(Locale.class, makeStringAdapter(Locale.class, Locale::toLanguageTag, Locale::forLanguageTag));
 		
 		/**
 		 * Color
 		 */
-		registerGsonSimpleDeSerializer(Color.class, Color.class, src -> {
+		registerGsonSimpleStreamingAdapter(Color.class, makeStringAdapter(Color.class, src -> {
 			StringBuilder sb = new StringBuilder();
 			sb.append("RGBA:");
 			toHex(src.getRed(), sb);
 			toHex(src.getGreen(), sb);
 			toHex(src.getBlue(), sb);
 			toHex(src.getAlpha(), sb);
-			return new JsonPrimitive(sb.toString());
+			return sb.toString();
 		}, json -> {
-			String hex = json.getAsString().substring(5);
+			String hex = json.substring(5);
 			return new Color(fromHexMax1Byte(hex, 0), fromHexMax1Byte(hex, 2), fromHexMax1Byte(hex, 4), fromHexMax1Byte(hex, 6));
-		});
+		}));
 		
 		/*
 		 * 	public class Serializer implements JsonSerializer<SelfSerializing> {
@@ -337,6 +450,64 @@ public class GsonKit {
 		rebuildGsonSimple();
 	}
 	
+	@FunctionalInterface
+	interface ToJsonString<T> {
+		String apply(T src) throws Exception;
+	}
+	
+	@FunctionalInterface
+	interface FromJsonString<T> {
+		T apply(String json) throws Exception;
+	}
+	
+	/**
+	 * Streaming adapter for a value saved as a Json string. Like with the tree adapters, errors are logged and give a null value.
+	 */
+	static <T> TypeAdapter<T> makeStringAdapter(Class<T> object_type, ToJsonString<T> to_string, FromJsonString<T> from_string) {
+		return new TypeAdapter<T>() {
+			public void write(JsonWriter out, T src) throws IOException {
+				String value = null;
+				try {
+					value = to_string.apply(src);
+				} catch (Exception e) {
+					log.error("Can't serialize from " + object_type.getName(), e);
+				}
+				out.value(value);
+			}
+			
+			public T read(JsonReader in) throws IOException {
+				String value = nextString(in, object_type);
+				if (value == null) {
+					return null;
+				}
+				try {
+					return from_string.apply(value);
+				} catch (Exception e) {
+					log.error("Can't deserialize from " + object_type.getName(), e);
+					return null;
+				}
+			}
+		};
+	}
+	
+	/**
+	 * @return null (and skip the value) if it's not a string, a number or a boolean.
+	 */
+	private static String nextString(JsonReader in, Class<?> object_type) throws IOException {
+		JsonToken token = in.peek();
+		if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+			return in.nextString();
+		} else if (token == JsonToken.BOOLEAN) {
+			return Boolean.toString(in.nextBoolean());
+		} else if (token == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		log.error("Can't deserialize from " + object_type.getName() + ", a string is expected instead of " + token);
+		in.skipValue();
+		return null;
+	}
+	
 	private static void toHex(int v, StringBuilder sb) {
 		if (v < 16) {
 			sb.append(0);
@@ -376,10 +547,13 @@ public class GsonKit {
 		return gson_simple;
 	}
 	
-	private Gson gson_full;
-	private Gson gson_full_pretty;
+	private volatile Gson gson_full;
+	private volatile Gson gson_full_pretty;
 	
-	private synchronized void rebuildGson() {
+	/**
+	 * Only with lock. The new instances are published only when they are ready.
+	 */
+	private void rebuildGson() {
 		GsonBuilder builder = new GsonBuilder();
 		builder.serializeNulls();
 		
@@ -389,42 +563,125 @@ public class GsonKit {
 		gson_simple_serializator.forEach(ser -> {
 			builder.registerTypeAdapter(ser.type, ser.typeAdapter);
 		});
-		gson_full_serializator.forEach(ser -> {
-			builder.registerTypeAdapter(ser.type, ser.typeAdapter);
-		});
+		/**
+		 * Registered after, so it's asked before the simple adapters.
+		 */
+		RegistryAdapterFactory new_registry_adapter_factory = new RegistryAdapterFactory();
+		builder.registerTypeAdapterFactory(new_registry_adapter_factory);
 		
 		if (full_pretty_printing) {
 			builder.setPrettyPrinting();
 		}
-		
-		gson_full = builder.create();
+		Gson new_gson_full = builder.create();
 		
 		builder.setPrettyPrinting();
-		gson_full_pretty = builder.create();
+		Gson new_gson_full_pretty = builder.create();
+		
+		registry_adapter_factory = new_registry_adapter_factory;
+		gson_full_pretty = new_gson_full_pretty;
+		gson_full = new_gson_full;
 	}
 	
 	/**
 	 * @return GsonSimple + all actual registerTypeAdapter()
 	 */
 	public Gson getGson() {
-		if (gson_full == null) {
-			rebuildGson();
+		Gson result = gson_full;
+		if (result == null) {
+			synchronized (this) {
+				if (gson_full == null) {
+					rebuildGson();
+				}
+				result = gson_full;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Lazily read the items of a Json array with getGson(), one by one: the whole document is never loaded in memory.
+	 * Closing the Stream closes the reader.
+	 * @param json_pointer RFC 6901 path of the array, like "/items" or "/export/2/rows". Empty for a root array.
+	 * @throws JsonParseException if json_pointer don't select an array. The Stream throws JsonSyntaxException or
+	 *         JsonIOException for the errors during the items reading.
+	 */
+	public <T> Stream<T> streamArray(Reader reader, String json_pointer, Class<T> item_class) throws IOException {
+		if (reader == null) {
+			throw new NullPointerException("\"reader\" can't to be null");
+		}
+		if (json_pointer == null) {
+			throw new NullPointerException("\"json_pointer\" can't to be null");
+		}
+		if (item_class == null) {
+			throw new NullPointerException("\"item_class\" can't to be null");
 		}
-		return gson_full;
+		
+		JsonReader json_reader = new JsonReader(reader);
+		JsonArraySpliterator<T> items;
+		try {
+			items = JsonArraySpliterator.open(json_reader, json_pointer, getGson().getAdapter(item_class));
+		} catch (IOException | RuntimeException e) {
+			json_reader.close();
+			throw e;
+		}
+		
+		return StreamSupport.stream(items, false).onClose(() -> {
+			try {
+				json_reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	/**
+	 * Lazily read the items of a Json array from an UTF-8 file, one by one. The Stream must be closed.
+	 * @see #streamArray(Reader, String, Class)
+	 */
+	public <T> Stream<T> streamArray(Path json_file, String json_pointer, Class<T> item_class) throws IOException {
+		if (json_file == null) {
+			throw new NullPointerException("\"json_file\" can't to be null");
+		}
+		return streamArray(Files.newBufferedReader(json_file, StandardCharsets.UTF_8), json_pointer, item_class);
 	}
 	
 	/**
 	 * @return GsonSimple + all actual registerTypeAdapter() + pretty printing
 	 */
 	public Gson getGsonPretty() {
-		if (gson_full_pretty == null) {
-			rebuildGson();
+		Gson result = gson_full_pretty;
+		if (result == null) {
+			synchronized (this) {
+				if (gson_full_pretty == null) {
+					rebuildGson();
+				}
+				result = gson_full_pretty;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Only with lock. The actual Gson instances are kept if they never used an adapter for this type.
+	 */
+	private void addToRegistry(De_Serializator ser) {
+		LinkedHashMap<Type, De_Serializator> new_registry = new LinkedHashMap<>(gson_full_serializator);
+		De_Serializator replaced = new_registry.put(TypeToken.get(ser.type).getType(), ser);
+		if (replaced != null && ser.isComplete() == false) {
+			ser.previous = replaced;
+		}
+		gson_full_serializator = Collections.unmodifiableMap(new_registry);
+		
+		if (registry_adapter_factory != null && registry_adapter_factory.isAsked(ser.type)) {
+			log.debug("Type " + ser.type.getTypeName() + " is already used by Gson, rebuild it");
+			registry_adapter_factory = null;
+			gson_full = null;
+			gson_full_pretty = null;
 		}
-		return gson_full_pretty;
 	}
 	
 	public synchronized <T> GsonKit registerDeserializer(Type type, Class<T> dest_type, Function<JsonElement, T> deserializer) {
-		gson_full_serializator.add(new De_Serializator(type, (JsonDeserializer<T>) (json, typeOfT, context) -> {
+		addToRegistry(new De_Serializator(type, (JsonDeserializer<T>) (json, typeOfT, context) -> {
 			try {
 				return deserializer.apply(json);
 			} catch (Exception e) {
@@ -432,13 +689,11 @@ public class GsonKit {
 				return null;
 			}
 		}));
-		gson_full = null;
-		gson_full_pretty = null;
 		return this;
 	}
 	
 	public synchronized <T> GsonKit registerSerializer(Type type, Class<T> source_type, Function<T, JsonElement> serializer) {
-		gson_full_serializator.add(new De_Serializator(type, (JsonSerializer<T>) (src, typeOfSrc, context) -> {
+		addToRegistry(new De_Serializator(type, (JsonSerializer<T>) (src, typeOfSrc, context) -> {
 			try {
 				return serializer.apply(src);
 			} catch (Exception e) {
@@ -446,18 +701,27 @@ public class GsonKit {
 				return null;
 			}
 		}));
-		gson_full = null;
-		gson_full_pretty = null;
 		return this;
 	}
 	
 	public synchronized <T> GsonKit registerDeSerializer(Type type, Class<T> object_type, Function<T, JsonElement> adapter_serializer, Function<JsonElement, T> adapter_deserializer) {
-		gson_full_serializator.add(new De_Serializator(type, makeDeSerializer(object_type, adapter_serializer, adapter_deserializer)));
-		gson_full = null;
-		gson_full_pretty = null;
+		addToRegistry(new De_Serializator(type, makeDeSerializer(object_type, adapter_serializer, adapter_deserializer)));
 		return this;
 	}
 	
+	/**
+	 * For read and write directly the Json stream, without intermediate JsonElement trees.
+	 * @param adapter null values are managed before its calls.
+	 */
+	public synchronized <T> GsonKit registerStreamingAdapter(Type type, TypeAdapter<T> adapter) {
+		addToRegistry(new De_Serializator(type, adapter.nullSafe()));
+		return this;
+	}
+	
+	<T> void registerGsonSimpleStreamingAdapter(Type type, TypeAdapter<T> adapter) {
+		gson_simple_serializator.add(new De_Serializator(type, adapter.nullSafe()));
+	}
+	
 	<T> void registerGsonSimpleDeSerializer(Type type, Class<T> object_type, Function<T, JsonElement> adapter_serializer, Function<JsonElement, T> adapter_deserializer) {
 		gson_simple_serializator.add(new De_Serializator(type, makeDeSerializer(object_type, adapter_serializer, adapter_deserializer)));
 	}
@@ -468,7 +732,7 @@ public class GsonKit {
 				return s.type;
 			});
 		} else {
-			return Stream.concat(gson_simple_serializator.stream(), gson_full_serializator.stream()).distinct().map(s -> {
+			return Stream.concat(gson_simple_serializator.stream(), gson_full_serializator.values().stream()).distinct().map(s -> {
 				return s.type;
 			});
 		}
@@ -500,6 +764,7 @@ public class GsonKit {
 		if (full_pretty_printing == false) {
 			synchronized (this) {
 				full_pretty_printing = true;
+				registry_adapter_factory = null;
 				gson_full = null;
 				gson_full_pretty = null;
 			}
@@ -616,12 +881,42 @@ public class GsonKit {
 		}
 	}
 	
+	/**
+	 * Structural diff, don't touch original and newer.
+	 * @return RFC 6902 JSON Patch operations (add, remove, replace, move) for change original to newer. Empty if they are equals.
+	 */
+	public static final JsonArray jsonDiff(JsonElement original, JsonElement newer) {
+		if (original == null) {
+			throw new NullPointerException("\"original\" can't to be null");
+		}
+		if (newer == null) {
+			throw new NullPointerException("\"newer\" can't to be null");
+		}
+		return JsonPatch.diff(original, newer);
+	}
+	
+	/**
+	 * Apply RFC 6902 JSON Patch operations (add, remove, replace, move, copy, test), like from jsonDiff. Don't touch target.
+	 * @return a patched copy of target
+	 * @throws JsonParseException for an invalid or a failed operation
+	 */
+	public static final JsonElement applyPatch(JsonElement target, JsonArray patch) {
+		if (target == null) {
+			throw new NullPointerException("\"target\" can't to be null");
+		}
+		if (patch == null) {
+			throw new NullPointerException("\"patch\" can't to be null");
+		}
+		return JsonPatch.apply(target, patch);
+	}
+	
 	public enum KeyValueNullContentMergeBehavior {
 		KEEP, REMOVE;
 	}
 	
 	/**
-	 * Update current with newer
+	 * Update current with newer, in place. Same rules as jsonCompare, without recursion: it works with deep trees, and the
+	 * branches with the same content are not visited.
 	 * @param null_behavior use REMOVE for remove all Nulls presence.
 	 */
 	public static final void jsonMerge(JsonElement current, JsonElement newer, KeyValueNullContentMergeBehavior null_behavior) {
@@ -633,25 +928,7 @@ public class GsonKit {
 		}
 		
 		if (current.isJsonArray() | current.isJsonObject()) {
-			jsonCompare(current, newer, (relative_to, k_to_add, v) -> {
-				if (v.isJsonNull()) {
-					if (null_behavior == KeyValueNullContentMergeBehavior.KEEP) {
-						relative_to.add(k_to_add, v);
-					}
-				} else {
-					relative_to.add(k_to_add, v);
-				}
-			}, (relative_to, k_to_remove, v) -> {
-				if (null_behavior == KeyValueNullContentMergeBehavior.KEEP) {
-					relative_to.add(k_to_remove, v);
-				} else if (null_behavior == KeyValueNullContentMergeBehavior.REMOVE) {
-					relative_to.remove(k_to_remove);
-				}
-			}, (relative_to, nothing, content_to_add) -> {
-				relative_to.add(content_to_add);
-			}, (relative_to, pos, content_to_remove) -> {
-				relative_to.remove(pos);
-			});
+			JsonMerger.merge(current, newer, null_behavior);
 		} else if (current.isJsonPrimitive()) {
 			throw new RuntimeException("Can't compare Json primitives");
 		} else if (current.isJsonNull()) {
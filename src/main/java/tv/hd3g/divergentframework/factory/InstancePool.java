@@ -0,0 +1,330 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Bounded pool of reusable Objects, created on demand.
+ * Idle Objects are reused in LIFO order, and removed (closed if AutoCloseable) after an idle timeout. There is no
+ * eviction thread: expired Objects are removed during borrow and giveBack calls, or with evictIdle.
+ */
+public class InstancePool<T> {
+	private static Logger log = Logger.getLogger(InstancePool.class);
+	
+	@FunctionalInterface
+	interface Creator<T> {
+		T create() throws ReflectiveOperationException;
+	}
+	
+	private final Class<T> pooled_class;
+	private final Creator<T> creator;
+	private final int max_size;
+	private final long idle_timeout;
+	private final long max_wait;
+	
+	private final ReentrantLock lock;
+	private final Condition available;
+	private final ArrayDeque<Idle> idle;
+	private final Set<T> borrowed;
+	private int size;
+	
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder waits;
+	private final LongAdder wait_time;
+	private final LongAdder evicted;
+	
+	private class Idle {
+		final T instance;
+		final long since;
+		
+		Idle(T instance) {
+			this.instance = instance;
+			since = System.nanoTime();
+		}
+	}
+	
+	InstancePool(Class<T> pooled_class, Creator<T> creator, int max_size, long idle_timeout, long max_wait, TimeUnit unit) {
+		this.pooled_class = pooled_class;
+		this.creator = creator;
+		if (max_size < 1) {
+			throw new IllegalArgumentException("Invalid max_size: " + max_size);
+		} else if (idle_timeout < 0) {
+			throw new IllegalArgumentException("Invalid idle_timeout: " + idle_timeout);
+		} else if (max_wait < 0) {
+			throw new IllegalArgumentException("Invalid max_wait: " + max_wait);
+		}
+		this.max_size = max_size;
+		this.idle_timeout = unit.toNanos(idle_timeout);
+		this.max_wait = unit.toNanos(max_wait);
+		
+		lock = new ReentrantLock();
+		available = lock.newCondition();
+		idle = new ArrayDeque<>(max_size);
+		borrowed = Collections.newSetFromMap(new IdentityHashMap<>(max_size));
+		
+		hits = new LongAdder();
+		misses = new LongAdder();
+		waits = new LongAdder();
+		wait_time = new LongAdder();
+		evicted = new LongAdder();
+	}
+	
+	/**
+	 * Get an idle Object, or create a new one if the pool is not full, or wait an Object give back.
+	 * @throws TimeoutException after max wait time
+	 */
+	public T borrow() throws ReflectiveOperationException, InterruptedException, TimeoutException {
+		ArrayList<T> to_close = new ArrayList<>(0);
+		boolean must_create = false;
+		T result = null;
+		
+		lock.lock();
+		try {
+			removeExpired(to_close);
+			
+			long wait_start = 0;
+			long remaining = max_wait;
+			while (idle.isEmpty() && size >= max_size) {
+				if (wait_start == 0) {
+					wait_start = System.nanoTime();
+					waits.increment();
+				}
+				if (remaining <= 0) {
+					wait_time.add(System.nanoTime() - wait_start);
+					throw new TimeoutException("Can't borrow a " + pooled_class.getName() + ", all the " + max_size + " instances are borrowed");
+				}
+				remaining = available.awaitNanos(remaining);
+			}
+			if (wait_start != 0) {
+				wait_time.add(System.nanoTime() - wait_start);
+			}
+			
+			if (idle.isEmpty() == false) {
+				result = idle.pollLast().instance;
+				borrowed.add(result);
+				hits.increment();
+			} else {
+				size++;
+				must_create = true;
+				misses.increment();
+			}
+		} finally {
+			lock.unlock();
+			closeAll(to_close);
+		}
+		
+		if (must_create == false) {
+			return result;
+		}
+		
+		try {
+			result = creator.create();
+		} catch (ReflectiveOperationException | RuntimeException | Error e) {
+			lock.lock();
+			try {
+				size--;
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+		
+		lock.lock();
+		try {
+			borrowed.add(result);
+		} finally {
+			lock.unlock();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return false if instance was not borrowed from this pool (or already given back).
+	 */
+	public boolean giveBack(Object instance) {
+		ArrayList<T> to_close = new ArrayList<>(0);
+		lock.lock();
+		try {
+			if (borrowed.remove(instance) == false) {
+				return false;
+			}
+			idle.addLast(new Idle(pooled_class.cast(instance)));
+			removeExpired(to_close);
+			available.signal();
+			return true;
+		} finally {
+			lock.unlock();
+			closeAll(to_close);
+		}
+	}
+	
+	/**
+	 * Remove (and close) the idle Objects after idle timeout.
+	 */
+	public void evictIdle() {
+		ArrayList<T> to_close = new ArrayList<>(0);
+		lock.lock();
+		try {
+			removeExpired(to_close);
+		} finally {
+			lock.unlock();
+			closeAll(to_close);
+		}
+	}
+	
+	/**
+	 * Remove (and close) all the idle Objects, counted as evicted. Borrowed Objects are not changed.
+	 */
+	public void clear() {
+		ArrayList<T> to_close = new ArrayList<>(0);
+		lock.lock();
+		try {
+			while (idle.isEmpty() == false) {
+				to_close.add(idle.pollFirst().instance);
+				size--;
+				evicted.increment();
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+			closeAll(to_close);
+		}
+	}
+	
+	/**
+	 * Only with lock. Oldest idle Objects are in the first positions.
+	 */
+	private void removeExpired(ArrayList<T> to_close) {
+		long now = System.nanoTime();
+		while (idle.isEmpty() == false && now - idle.peekFirst().since > idle_timeout) {
+			to_close.add(idle.pollFirst().instance);
+			size--;
+			evicted.increment();
+			available.signal();
+		}
+	}
+	
+	private void closeAll(ArrayList<T> to_close) {
+		to_close.forEach(instance -> {
+			if (instance instanceof AutoCloseable) {
+				try {
+					((AutoCloseable) instance).close();
+				} catch (Exception e) {
+					log.warn("Can't close evicted " + pooled_class.getName(), e);
+				}
+			}
+		});
+	}
+	
+	public Class<T> getPooledClass() {
+		return pooled_class;
+	}
+	
+	public int getMaxSize() {
+		return max_size;
+	}
+	
+	/**
+	 * @return borrowed and idle Objects count
+	 */
+	public int getSize() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public int getIdleSize() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public int getBorrowedSize() {
+		lock.lock();
+		try {
+			return borrowed.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return borrows with an idle Object
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * @return borrows with an Object creation
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+	
+	/**
+	 * @return between 0 and 1, 0 if never borrowed
+	 */
+	public double getHitRate() {
+		long hit_count = hits.sum();
+		long total = hit_count + misses.sum();
+		if (total == 0) {
+			return 0;
+		}
+		return (double) hit_count / (double) total;
+	}
+	
+	/**
+	 * @return borrows which have waited a give back
+	 */
+	public long getWaitCount() {
+		return waits.sum();
+	}
+	
+	public long getTotalWaitTime(TimeUnit unit) {
+		return unit.convert(wait_time.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	public long getEvictedCount() {
+		return evicted.sum();
+	}
+	
+	public String toString() {
+		return pooled_class.getName() + " pool, size: " + getSize() + "/" + max_size + ", idle: " + getIdleSize() + ", hit rate: " + Math.round(getHitRate() * 100d) + "%";
+	}
+	
+}
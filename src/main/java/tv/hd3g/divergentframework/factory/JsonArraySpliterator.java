@@ -0,0 +1,123 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Pull the items of a Json array, one by one, from a JsonReader: only the actual item is in memory.
+ */
+class JsonArraySpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+	
+	private final JsonReader reader;
+	private final TypeAdapter<T> item_adapter;
+	private boolean ended;
+	
+	/**
+	 * @param reader must be just before the array items (after beginArray).
+	 */
+	private JsonArraySpliterator(JsonReader reader, TypeAdapter<T> item_adapter) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED);
+		this.reader = reader;
+		this.item_adapter = item_adapter;
+	}
+	
+	/**
+	 * Move reader to the array selected by json_pointer, skipping all the other values.
+	 * @param json_pointer RFC 6901, like "/items" or "/export/2/rows". Empty for a root array.
+	 * @throws JsonParseException if json_pointer don't select an array
+	 */
+	static <T> JsonArraySpliterator<T> open(JsonReader reader, String json_pointer, TypeAdapter<T> item_adapter) throws IOException {
+		List<String> tokens = JsonPatch.parsePointer(json_pointer);
+		
+		for (String token : tokens) {
+			JsonToken next = reader.peek();
+			if (next == JsonToken.BEGIN_OBJECT) {
+				reader.beginObject();
+				boolean found = false;
+				while (found == false && reader.hasNext()) {
+					if (reader.nextName().equals(token)) {
+						found = true;
+					} else {
+						reader.skipValue();
+					}
+				}
+				if (found == false) {
+					throw new JsonParseException("Can't found \"" + token + "\" in " + json_pointer);
+				}
+			} else if (next == JsonToken.BEGIN_ARRAY) {
+				int index;
+				try {
+					index = Integer.parseInt(token);
+				} catch (NumberFormatException e) {
+					throw new JsonParseException("Invalid array index \"" + token + "\" in " + json_pointer);
+				}
+				reader.beginArray();
+				for (int pos = 0; pos < index && reader.hasNext(); pos++) {
+					reader.skipValue();
+				}
+				if (index < 0 || reader.hasNext() == false) {
+					throw new JsonParseException("Array index " + token + " is out of bounds in " + json_pointer);
+				}
+			} else {
+				throw new JsonParseException("Can't found \"" + token + "\" in a " + next + " value, in " + json_pointer);
+			}
+		}
+		
+		if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+			throw new JsonParseException("\"" + json_pointer + "\" is not an array: " + reader.peek());
+		}
+		reader.beginArray();
+		return new JsonArraySpliterator<>(reader, item_adapter);
+	}
+	
+	/**
+	 * @throws JsonSyntaxException for an invalid Json content
+	 * @throws JsonIOException for a read error
+	 */
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (ended) {
+			return false;
+		}
+		try {
+			if (reader.hasNext() == false) {
+				reader.endArray();
+				ended = true;
+				return false;
+			}
+			action.accept(item_adapter.read(reader));
+			return true;
+		} catch (MalformedJsonException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+	
+}
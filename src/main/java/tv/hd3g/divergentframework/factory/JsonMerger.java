@@ -0,0 +1,193 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import tv.hd3g.divergentframework.factory.GsonKit.KeyValueNullContentMergeBehavior;
+
+/**
+ * In place merge engine for GsonKit.jsonMerge, with the same rules as jsonCompare, but with an explicit stack (no recursion)
+ * and without temporary key lists. Unchanged values are not set again, and JsonArrays with the same content are not
+ * replaced. Like before, current gets the newer elements, not copies.
+ */
+class JsonMerger {
+	
+	/**
+	 * current must be a JsonObject or a JsonArray.
+	 */
+	static void merge(JsonElement current, JsonElement newer, KeyValueNullContentMergeBehavior null_behavior) {
+		if (current.isJsonArray()) {
+			JsonArray ja_current = current.getAsJsonArray();
+			if (newer.isJsonObject()) {
+				throw new RuntimeException("Can't inject a JsonObject in place of a JsonArray");
+			} else if (newer.isJsonArray()) {
+				replaceContent(ja_current, newer.getAsJsonArray());
+			} else {
+				clear(ja_current);
+				if (newer.isJsonPrimitive()) {
+					ja_current.add(newer);
+				}
+			}
+			return;
+		}
+		
+		JsonObject jo_current = current.getAsJsonObject();
+		if (newer.isJsonArray()) {
+			throw new RuntimeException("Can't inject a JsonArray in place of a JsonObject");
+		} else if (newer.isJsonPrimitive()) {
+			throw new RuntimeException("Can't inject a JsonPrimitive in place of a JsonObject");
+		} else if (newer.isJsonNull()) {
+			if (null_behavior == KeyValueNullContentMergeBehavior.REMOVE) {
+				jo_current.keySet().clear();
+			}
+			return;
+		}
+		
+		mergeObjects(jo_current, newer.getAsJsonObject(), null_behavior);
+	}
+	
+	private static void mergeObjects(JsonObject root_current, JsonObject root_newer, KeyValueNullContentMergeBehavior null_behavior) {
+		ArrayDeque<JsonObject> to_merge = new ArrayDeque<>();
+		if (root_current != root_newer) {
+			to_merge.push(root_newer);
+			to_merge.push(root_current);
+		}
+		
+		while (to_merge.isEmpty() == false) {
+			JsonObject jo_current = to_merge.pop();
+			JsonObject jo_newer = to_merge.pop();
+			
+			for (Map.Entry<String, JsonElement> entry : jo_newer.entrySet()) {
+				String key = entry.getKey();
+				JsonElement newer_value = entry.getValue();
+				JsonElement current_value = jo_current.get(key);
+				
+				if (current_value == null) {
+					if (newer_value.isJsonNull() == false || null_behavior == KeyValueNullContentMergeBehavior.KEEP) {
+						jo_current.add(key, newer_value);
+					}
+				} else if (newer_value.isJsonNull()) {
+					if (null_behavior == KeyValueNullContentMergeBehavior.REMOVE) {
+						jo_current.remove(key);
+					} else if (current_value.isJsonNull() == false) {
+						jo_current.add(key, newer_value);
+					}
+				} else if (current_value.isJsonObject() && newer_value.isJsonObject()) {
+					if (current_value != newer_value) {
+						to_merge.push(newer_value.getAsJsonObject());
+						to_merge.push(current_value.getAsJsonObject());
+					}
+				} else if (current_value.isJsonArray() && newer_value.isJsonArray()) {
+					if (sameContent(current_value, newer_value) == false) {
+						replaceContent(current_value.getAsJsonArray(), newer_value.getAsJsonArray());
+					}
+				} else if (newer_value.isJsonPrimitive() && samePrimitive(current_value, newer_value)) {
+					/**
+					 * Current will not change.
+					 */
+				} else {
+					jo_current.add(key, newer_value);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Like JsonElement.equals, without recursion, and with samePrimitive. Also used by JsonPatch.
+	 */
+	static boolean sameContent(JsonElement a, JsonElement b) {
+		ArrayDeque<JsonElement> to_compare = new ArrayDeque<>();
+		to_compare.push(b);
+		to_compare.push(a);
+		while (to_compare.isEmpty() == false) {
+			JsonElement left = to_compare.pop();
+			JsonElement right = to_compare.pop();
+			
+			if (left == right) {
+				continue;
+			} else if (left.isJsonArray() && right.isJsonArray()) {
+				JsonArray left_array = left.getAsJsonArray();
+				JsonArray right_array = right.getAsJsonArray();
+				if (left_array.size() != right_array.size()) {
+					return false;
+				}
+				for (int pos = 0; pos < left_array.size(); pos++) {
+					to_compare.push(right_array.get(pos));
+					to_compare.push(left_array.get(pos));
+				}
+			} else if (left.isJsonObject() && right.isJsonObject()) {
+				JsonObject right_object = right.getAsJsonObject();
+				if (left.getAsJsonObject().size() != right_object.size()) {
+					return false;
+				}
+				for (Map.Entry<String, JsonElement> entry : left.getAsJsonObject().entrySet()) {
+					JsonElement right_value = right_object.get(entry.getKey());
+					if (right_value == null) {
+						return false;
+					}
+					to_compare.push(right_value);
+					to_compare.push(entry.getValue());
+				}
+			} else if (left.isJsonArray() || left.isJsonObject() || right.isJsonArray() || right.isJsonObject()) {
+				return false;
+			} else if (samePrimitive(left, right) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * JsonPrimitive.equals compares the numbers as double values: here, numbers are the same only with the same text, so
+	 * 9007199254740993 is not 9007199254740992, and 1 is not 1.0.
+	 */
+	static boolean samePrimitive(JsonElement left, JsonElement right) {
+		if (left.isJsonPrimitive() && right.isJsonPrimitive()) {
+			JsonPrimitive left_primitive = left.getAsJsonPrimitive();
+			JsonPrimitive right_primitive = right.getAsJsonPrimitive();
+			if (left_primitive.isNumber() || right_primitive.isNumber()) {
+				return left_primitive.isNumber() && right_primitive.isNumber() && left_primitive.getAsNumber().toString().equals(right_primitive.getAsNumber().toString());
+			}
+		}
+		return left.equals(right);
+	}
+	
+	/**
+	 * Keep the current JsonArray instance, with the newer items.
+	 */
+	private static void replaceContent(JsonArray current, JsonArray newer) {
+		if (current == newer) {
+			return;
+		}
+		clear(current);
+		current.addAll(newer);
+	}
+	
+	private static void clear(JsonArray array) {
+		for (int pos = array.size() - 1; pos >= 0; pos--) {
+			array.remove(pos);
+		}
+	}
+	
+}
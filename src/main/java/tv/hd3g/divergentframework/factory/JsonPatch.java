@@ -0,0 +1,420 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+/**
+ * RFC 6902 JSON Patch: structural diff (add, remove, replace, move) and patch apply.
+ * Identical branches are skipped with memoized subtree hashes, and arrays are aligned by LCS (after removing the common
+ * prefix and suffix).
+ */
+class JsonPatch {
+	
+	/**
+	 * Over this (source x target) size, array items are compared by position.
+	 */
+	static final int MAX_LCS_CELLS = 1_000_000;
+	
+	private final IdentityHashMap<JsonElement, Integer> hashes;
+	private final JsonArray operations;
+	
+	private JsonPatch() {
+		hashes = new IdentityHashMap<>();
+		operations = new JsonArray();
+	}
+	
+	static JsonArray diff(JsonElement source, JsonElement target) {
+		JsonPatch patch = new JsonPatch();
+		patch.diff("", source, target);
+		return patch.operations;
+	}
+	
+	/**
+	 * Consistent with JsonMerger.sameContent: a number hash is its text hash.
+	 */
+	private int hash(JsonElement element) {
+		if (element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber()) {
+			return element.getAsNumber().toString().hashCode();
+		} else if (element.isJsonPrimitive() || element.isJsonNull()) {
+			return element.hashCode();
+		}
+		Integer result = hashes.get(element);
+		if (result != null) {
+			return result;
+		}
+		
+		int h;
+		if (element.isJsonArray()) {
+			h = 1;
+			for (JsonElement item : element.getAsJsonArray()) {
+				h = 31 * h + hash(item);
+			}
+		} else {
+			/**
+			 * Like JsonObject.equals, don't care of the keys order.
+			 */
+			h = 0;
+			for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+				h += entry.getKey().hashCode() ^ hash(entry.getValue());
+			}
+		}
+		hashes.put(element, h);
+		return h;
+	}
+	
+	private boolean same(JsonElement a, JsonElement b) {
+		return a == b || hash(a) == hash(b) && JsonMerger.sameContent(a, b);
+	}
+	
+	private void diff(String path, JsonElement source, JsonElement target) {
+		if (same(source, target)) {
+			return;
+		} else if (source.isJsonObject() && target.isJsonObject()) {
+			diffObjects(path, source.getAsJsonObject(), target.getAsJsonObject());
+		} else if (source.isJsonArray() && target.isJsonArray()) {
+			diffArrays(path, source.getAsJsonArray(), target.getAsJsonArray());
+		} else {
+			addOperation("replace", path, null, target);
+		}
+	}
+	
+	private void diffObjects(String path, JsonObject source, JsonObject target) {
+		ArrayList<String> removed = new ArrayList<>();
+		source.entrySet().forEach(entry -> {
+			JsonElement target_value = target.get(entry.getKey());
+			if (target_value == null) {
+				removed.add(entry.getKey());
+			} else {
+				diff(path + "/" + escape(entry.getKey()), entry.getValue(), target_value);
+			}
+		});
+		
+		ArrayList<String> added = target.keySet().stream().filter(key -> source.has(key) == false).collect(Collectors.toCollection(ArrayList::new));
+		
+		/**
+		 * A renamed key is a move.
+		 */
+		for (int pos = 0; pos < removed.size(); pos++) {
+			JsonElement removed_value = source.get(removed.get(pos));
+			for (int pos_added = 0; pos_added < added.size(); pos_added++) {
+				if (same(removed_value, target.get(added.get(pos_added)))) {
+					addOperation("move", path + "/" + escape(added.get(pos_added)), path + "/" + escape(removed.get(pos)), null);
+					removed.remove(pos--);
+					added.remove(pos_added);
+					break;
+				}
+			}
+		}
+		
+		removed.forEach(key -> {
+			addOperation("remove", path + "/" + escape(key), null, null);
+		});
+		added.forEach(key -> {
+			addOperation("add", path + "/" + escape(key), null, target.get(key));
+		});
+	}
+	
+	private void diffArrays(String path, JsonArray source, JsonArray target) {
+		int source_size = source.size();
+		int target_size = target.size();
+		
+		int prefix = 0;
+		while (prefix < source_size && prefix < target_size && same(source.get(prefix), target.get(prefix))) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < source_size - prefix && suffix < target_size - prefix && same(source.get(source_size - 1 - suffix), target.get(target_size - 1 - suffix))) {
+			suffix++;
+		}
+		
+		int source_end = source_size - suffix;
+		int target_end = target_size - suffix;
+		int n = source_end - prefix;
+		int m = target_end - prefix;
+		
+		/**
+		 * Position in the patched array, during the patch apply.
+		 */
+		int index = prefix;
+		int source_pos = prefix;
+		int target_pos = prefix;
+		
+		if (n > 0 && m > 0 && (long) n * (long) m <= MAX_LCS_CELLS) {
+			int[][] lcs = new int[n + 1][m + 1];
+			for (int i = n - 1; i >= 0; i--) {
+				for (int j = m - 1; j >= 0; j--) {
+					if (same(source.get(prefix + i), target.get(prefix + j))) {
+						lcs[i][j] = lcs[i + 1][j + 1] + 1;
+					} else {
+						lcs[i][j] = Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+					}
+				}
+			}
+			
+			int i = 0;
+			int j = 0;
+			while (i < n && j < m) {
+				if (same(source.get(prefix + i), target.get(prefix + j))) {
+					index = diffGap(path, source, target, source_pos, prefix + i, target_pos, prefix + j, index) + 1;
+					source_pos = prefix + ++i;
+					target_pos = prefix + ++j;
+				} else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+		}
+		diffGap(path, source, target, source_pos, source_end, target_pos, target_end, index);
+	}
+	
+	/**
+	 * Items without match: compared by position, then removed or added.
+	 * @return the next index in the patched array
+	 */
+	private int diffGap(String path, JsonArray source, JsonArray target, int source_from, int source_to, int target_from, int target_to, int index) {
+		int source_pos = source_from;
+		int target_pos = target_from;
+		while (source_pos < source_to && target_pos < target_to) {
+			diff(path + "/" + index, source.get(source_pos++), target.get(target_pos++));
+			index++;
+		}
+		while (source_pos++ < source_to) {
+			addOperation("remove", path + "/" + index, null, null);
+		}
+		while (target_pos < target_to) {
+			addOperation("add", path + "/" + index++, null, target.get(target_pos++));
+		}
+		return index;
+	}
+	
+	private void addOperation(String op, String path, String from, JsonElement value) {
+		JsonObject operation = new JsonObject();
+		operation.addProperty("op", op);
+		if (from != null) {
+			operation.addProperty("from", from);
+		}
+		operation.addProperty("path", path);
+		if (value != null) {
+			operation.add("value", value.deepCopy());
+		}
+		operations.add(operation);
+	}
+	
+	static String escape(String key) {
+		return key.replace("~", "~0").replace("/", "~1");
+	}
+	
+	/**
+	 * @return a patched copy of document
+	 */
+	static JsonElement apply(JsonElement document, JsonArray patch) {
+		JsonElement result = document.deepCopy();
+		for (JsonElement raw_operation : patch) {
+			if (raw_operation.isJsonObject() == false) {
+				throw new JsonParseException("Invalid patch operation: " + raw_operation);
+			}
+			JsonObject operation = raw_operation.getAsJsonObject();
+			String op = getString(operation, "op");
+			String path = getString(operation, "path");
+			
+			switch (op) {
+			case "add":
+				result = add(result, path, getValue(operation).deepCopy());
+				break;
+			case "remove":
+				remove(result, path);
+				break;
+			case "replace":
+				if (path.isEmpty()) {
+					result = getValue(operation).deepCopy();
+				} else {
+					remove(result, path);
+					result = add(result, path, getValue(operation).deepCopy());
+				}
+				break;
+			case "move":
+				String move_from = getString(operation, "from");
+				if (path.equals(move_from)) {
+					break;
+				} else if (path.startsWith(move_from + "/")) {
+					throw new JsonParseException("Can't move " + move_from + " to one of its children: " + path);
+				}
+				result = add(result, path, remove(result, move_from));
+				break;
+			case "copy":
+				result = add(result, path, get(result, getString(operation, "from")).deepCopy());
+				break;
+			case "test":
+				if (JsonMerger.sameContent(get(result, path), getValue(operation)) == false) {
+					throw new JsonParseException("Test failed for " + path);
+				}
+				break;
+			default:
+				throw new JsonParseException("Invalid patch operation \"" + op + "\"");
+			}
+		}
+		return result;
+	}
+	
+	private static String getString(JsonObject operation, String name) {
+		JsonElement value = operation.get(name);
+		if (value == null || value.isJsonPrimitive() == false) {
+			throw new JsonParseException("Missing \"" + name + "\" in patch operation " + operation);
+		}
+		return value.getAsString();
+	}
+	
+	private static JsonElement getValue(JsonObject operation) {
+		JsonElement value = operation.get("value");
+		if (value == null) {
+			throw new JsonParseException("Missing \"value\" in patch operation " + operation);
+		}
+		return value;
+	}
+	
+	/**
+	 * @return decoded tokens, empty for the root
+	 */
+	static List<String> parsePointer(String pointer) {
+		ArrayList<String> tokens = new ArrayList<>();
+		if (pointer.isEmpty()) {
+			return tokens;
+		} else if (pointer.charAt(0) != '/') {
+			throw new JsonParseException("Invalid JSON pointer: " + pointer);
+		}
+		for (String token : pointer.substring(1).split("/", -1)) {
+			tokens.add(token.replace("~1", "/").replace("~0", "~"));
+		}
+		return tokens;
+	}
+	
+	private static JsonElement get(JsonElement document, String pointer) {
+		JsonElement current = document;
+		for (String token : parsePointer(pointer)) {
+			current = getChild(current, token, pointer);
+		}
+		return current;
+	}
+	
+	private static JsonElement getChild(JsonElement parent, String token, String pointer) {
+		JsonElement result = null;
+		if (parent.isJsonObject()) {
+			result = parent.getAsJsonObject().get(token);
+		} else if (parent.isJsonArray()) {
+			JsonArray array = parent.getAsJsonArray();
+			int index = parseIndex(token, array.size() - 1, pointer);
+			result = array.get(index);
+		}
+		if (result == null) {
+			throw new JsonParseException("Can't found " + pointer);
+		}
+		return result;
+	}
+	
+	private static int parseIndex(String token, int max, String pointer) {
+		if (token.isEmpty() || token.length() > 1 && token.charAt(0) == '0' || token.chars().allMatch(Character::isDigit) == false) {
+			throw new JsonParseException("Invalid array index \"" + token + "\" in " + pointer);
+		}
+		int index;
+		try {
+			index = Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new JsonParseException("Invalid array index \"" + token + "\" in " + pointer, e);
+		}
+		if (index > max) {
+			throw new JsonParseException("Array index out of bounds \"" + token + "\" in " + pointer);
+		}
+		return index;
+	}
+	
+	/**
+	 * @return the (maybe new) document
+	 */
+	private static JsonElement add(JsonElement document, String pointer, JsonElement value) {
+		List<String> tokens = parsePointer(pointer);
+		if (tokens.isEmpty()) {
+			return value;
+		}
+		JsonElement parent = document;
+		for (String token : tokens.subList(0, tokens.size() - 1)) {
+			parent = getChild(parent, token, pointer);
+		}
+		String last = tokens.get(tokens.size() - 1);
+		
+		if (parent.isJsonObject()) {
+			parent.getAsJsonObject().add(last, value);
+		} else if (parent.isJsonArray()) {
+			JsonArray array = parent.getAsJsonArray();
+			if (last.equals("-")) {
+				array.add(value);
+			} else {
+				int index = parseIndex(last, array.size(), pointer);
+				/**
+				 * JsonArray can't insert.
+				 */
+				array.add(JsonNull.INSTANCE);
+				for (int pos = array.size() - 1; pos > index; pos--) {
+					array.set(pos, array.get(pos - 1));
+				}
+				array.set(index, value);
+			}
+		} else {
+			throw new JsonParseException("Can't add in a value: " + pointer);
+		}
+		return document;
+	}
+	
+	/**
+	 * @return the removed value
+	 */
+	private static JsonElement remove(JsonElement document, String pointer) {
+		List<String> tokens = parsePointer(pointer);
+		if (tokens.isEmpty()) {
+			throw new JsonParseException("Can't remove the root document");
+		}
+		JsonElement parent = document;
+		for (String token : tokens.subList(0, tokens.size() - 1)) {
+			parent = getChild(parent, token, pointer);
+		}
+		String last = tokens.get(tokens.size() - 1);
+		
+		if (parent.isJsonObject()) {
+			JsonElement removed = parent.getAsJsonObject().remove(last);
+			if (removed == null) {
+				throw new JsonParseException("Can't found " + pointer);
+			}
+			return removed;
+		} else if (parent.isJsonArray()) {
+			JsonArray array = parent.getAsJsonArray();
+			return array.remove(parseIndex(last, array.size() - 1, pointer));
+		}
+		throw new JsonParseException("Can't remove in a value: " + pointer);
+	}
+	
+}
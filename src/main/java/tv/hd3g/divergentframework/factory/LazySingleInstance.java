@@ -0,0 +1,88 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Proxy handler for a lazy SingleInstance interface: the real instance is created on the first method call, only one time.
+ */
+class LazySingleInstance implements InvocationHandler {
+	private static Logger log = Logger.getLogger(LazySingleInstance.class);
+	
+	private final Class<?> interface_class;
+	private final SingletonRegistry.Creator creator;
+	private volatile Object instance;
+	
+	private LazySingleInstance(Class<?> interface_class, SingletonRegistry.Creator creator) {
+		this.interface_class = interface_class;
+		this.creator = creator;
+	}
+	
+	static Object createProxy(Class<?> interface_class, SingletonRegistry.Creator creator) {
+		return Proxy.newProxyInstance(interface_class.getClassLoader(), new Class<?>[] { interface_class }, new LazySingleInstance(interface_class, creator));
+	}
+	
+	/**
+	 * If the creation fails, it will be retried on the next call.
+	 */
+	private Object getInstance() throws ReflectiveOperationException {
+		Object result = instance;
+		if (result != null) {
+			return result;
+		}
+		synchronized (this) {
+			if (instance == null) {
+				log.debug("Create lazy SingleInstance " + interface_class.getName());
+				instance = creator.create(interface_class);
+			}
+			return instance;
+		}
+	}
+	
+	/**
+	 * equals and hashCode are by proxy identity, and toString don't create the instance: the proxy can be put in a Set/Map,
+	 * or logged, before its first real call.
+	 */
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			if (method.getName().equals("equals")) {
+				return args[0] == proxy;
+			} else if (method.getName().equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (method.getName().equals("toString") && instance == null) {
+				return "Lazy " + interface_class.getName() + " (not created)";
+			}
+		}
+		
+		Object target = getInstance();
+		if (method.canAccess(target) == false) {
+			method.trySetAccessible();
+		}
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+	
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * With a Factory, borrow Objects from a bounded pool. Objects must be given back to the Factory after use.
+ * @see Factory.giveBack
+ * @see InstancePool
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface PooledInstance {
+	
+	/**
+	 * Max Objects count, borrowed or idle.
+	 */
+	int maxSize() default 8;
+	
+	/**
+	 * Idle Objects are removed from the pool after this time (and closed if AutoCloseable).
+	 */
+	long idleTimeout() default 60;
+	
+	/**
+	 * Max wait time for borrow an Object, if all the Objects are borrowed.
+	 */
+	long maxWait() default 30;
+	
+	TimeUnit unit() default TimeUnit.SECONDS;
+	
+}
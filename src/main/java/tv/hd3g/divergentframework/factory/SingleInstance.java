@@ -29,4 +29,9 @@ import java.lang.annotation.Target;
 @Target(TYPE)
 public @interface SingleInstance {
 	
+	/**
+	 * Only for interfaces (ignored for classes): Factory returns a proxy, and creates the real instance on the first method call.
+	 */
+	boolean lazy() default false;
+	
 }
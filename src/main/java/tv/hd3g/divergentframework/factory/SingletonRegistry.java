@@ -0,0 +1,222 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import org.apache.log4j.Logger;
+
+/**
+ * SingleInstance objects, by class.
+ * Only one thread creates a given class, the others threads wait for it. The creation is not done in a map lock, so a
+ * creation can create others SingleInstance classes (on the same thread or not).
+ * True cycles (on the same thread or between waiting threads) throws a ReflectiveOperationException instead of a deadlock.
+ */
+class SingletonRegistry {
+	private static Logger log = Logger.getLogger(SingletonRegistry.class);
+	
+	@FunctionalInterface
+	interface Creator {
+		Object create(Class<?> single_instance_class) throws ReflectiveOperationException;
+	}
+	
+	private final SingletonRegistry parent;
+	private final ConcurrentHashMap<Class<?>, Slot> slots;
+	private final ConcurrentHashMap<Thread, Slot> waits_for;
+	private final ThreadLocal<ArrayDeque<Class<?>>> in_creation;
+	
+	/**
+	 * @param parent can be null. Instances already created by parent are used, else they are created in this registry.
+	 */
+	SingletonRegistry(SingletonRegistry parent) {
+		this.parent = parent;
+		slots = new ConcurrentHashMap<>();
+		waits_for = new ConcurrentHashMap<>();
+		in_creation = ThreadLocal.withInitial(ArrayDeque::new);
+	}
+	
+	private static class Slot extends CompletableFuture<Object> {
+		final Class<?> single_instance_class;
+		final Thread owner;
+		
+		Slot(Class<?> single_instance_class) {
+			this.single_instance_class = single_instance_class;
+			owner = Thread.currentThread();
+		}
+	}
+	
+	/**
+	 * @param creator called only one time by class, if not already created, on the current thread.
+	 */
+	Object get(Class<?> single_instance_class, Creator creator) throws ReflectiveOperationException {
+		Slot slot = slots.get(single_instance_class);
+		if (slot != null && slot.isDone() && slot.isCompletedExceptionally() == false) {
+			return slot.getNow(null);
+		}
+		
+		if (slot == null && parent != null) {
+			Object from_parent = parent.getIfCreated(single_instance_class);
+			if (from_parent != null) {
+				return from_parent;
+			}
+		}
+		
+		if (slot == null) {
+			Slot candidate = new Slot(single_instance_class);
+			slot = slots.putIfAbsent(single_instance_class, candidate);
+			if (slot == null) {
+				return createIn(candidate, creator);
+			}
+		}
+		
+		return waitFor(slot);
+	}
+	
+	private Object createIn(Slot slot, Creator creator) throws ReflectiveOperationException {
+		ArrayDeque<Class<?>> stack = in_creation.get();
+		stack.push(slot.single_instance_class);
+		try {
+			Object result = creator.create(slot.single_instance_class);
+			slot.complete(result);
+			return result;
+		} catch (ReflectiveOperationException | RuntimeException | Error e) {
+			/**
+			 * Let the next call to retry.
+			 */
+			slots.remove(slot.single_instance_class, slot);
+			slot.completeExceptionally(e);
+			throw e;
+		} finally {
+			stack.pop();
+			if (stack.isEmpty()) {
+				in_creation.remove();
+			}
+		}
+	}
+	
+	private Object waitFor(Slot slot) throws ReflectiveOperationException {
+		Thread current = Thread.currentThread();
+		
+		if (slot.isDone() == false) {
+			if (slot.owner == current) {
+				throw new ReflectiveOperationException("SingleInstance cycle: " + getCreationStack() + " -> " + slot.single_instance_class.getSimpleName());
+			}
+			
+			waits_for.put(current, slot);
+			try {
+				/**
+				 * Follow the waits-for graph: the owner of slot waits for a class owned by...
+				 */
+				Slot next = slot;
+				while (next != null && next.isDone() == false) {
+					if (next.owner == current) {
+						throw new ReflectiveOperationException("SingleInstance cycle between threads: " + getCreationStack() + " -> " + slot.single_instance_class.getSimpleName() + " (created by " + slot.owner.getName() + ")");
+					}
+					next = waits_for.get(next.owner);
+				}
+				
+				return slot.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ReflectiveOperationException("Interrupted during the wait of " + slot.single_instance_class.getName(), e);
+			} catch (ExecutionException e) {
+				return rethrow(slot, e.getCause());
+			} finally {
+				waits_for.remove(current);
+			}
+		}
+		
+		try {
+			return slot.getNow(null);
+		} catch (Exception e) {
+			return rethrow(slot, e.getCause());
+		}
+	}
+	
+	private static Object rethrow(Slot slot, Throwable cause) throws ReflectiveOperationException {
+		if (cause instanceof ReflectiveOperationException) {
+			throw (ReflectiveOperationException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		throw new InvocationTargetException(cause, "Can't instance SingleInstance " + slot.single_instance_class.getSimpleName());
+	}
+	
+	private String getCreationStack() {
+		ArrayList<String> names = new ArrayList<>();
+		in_creation.get().descendingIterator().forEachRemaining(c -> {
+			names.add(c.getSimpleName());
+		});
+		if (names.isEmpty()) {
+			in_creation.remove();
+		}
+		return String.join(" -> ", names);
+	}
+	
+	/**
+	 * @return null if not created here, or by a parent.
+	 */
+	Object getIfCreated(Class<?> single_instance_class) {
+		Slot slot = slots.get(single_instance_class);
+		if (slot != null && slot.isDone() && slot.isCompletedExceptionally() == false) {
+			return slot.getNow(null);
+		} else if (parent != null) {
+			return parent.getIfCreated(single_instance_class);
+		}
+		return null;
+	}
+	
+	/**
+	 * Only remove created instances, not the in progress creations.
+	 */
+	void remove(Class<?> single_instance_class) {
+		Slot slot = slots.get(single_instance_class);
+		if (slot != null && slot.isDone()) {
+			slots.remove(single_instance_class, slot);
+			if (log.isDebugEnabled()) {
+				log.debug("Remove SingleInstance " + single_instance_class.getName());
+			}
+		}
+	}
+	
+	/**
+	 * Only remove created instances, not the in progress creations.
+	 */
+	void removeIf(Predicate<Class<?>> filter) {
+		slots.forEach((single_instance_class, slot) -> {
+			if (slot.isDone() && filter.test(single_instance_class)) {
+				remove(single_instance_class);
+			}
+		});
+	}
+	
+	/**
+	 * @return created instances count
+	 */
+	int size() {
+		return (int) slots.values().stream().filter(slot -> {
+			return slot.isDone() && slot.isCompletedExceptionally() == false;
+		}).count();
+	}
+	
+}
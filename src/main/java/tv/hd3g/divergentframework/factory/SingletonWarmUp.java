@@ -0,0 +1,113 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Create SingleInstance classes in parallel: each class is created after all the SingleInstance classes it depends on.
+ * Dependencies are only the constructor parameters (directly, or via a not SingleInstance constructor parameter).
+ */
+class SingletonWarmUp {
+	private static Logger log = Logger.getLogger(SingletonWarmUp.class);
+	
+	@FunctionalInterface
+	interface DependencyResolver {
+		/**
+		 * @return SingleInstance classes needed by single_instance_class creation
+		 */
+		Set<Class<?>> getSingleInstanceDependencies(Class<?> single_instance_class) throws ReflectiveOperationException;
+	}
+	
+	private final Executor executor;
+	private final SingletonRegistry.Creator creator;
+	private final DependencyResolver dependency_resolver;
+	private final HashMap<Class<?>, CompletableFuture<Object>> nodes;
+	
+	SingletonWarmUp(Executor executor, SingletonRegistry.Creator creator, DependencyResolver dependency_resolver) {
+		this.executor = executor;
+		this.creator = creator;
+		this.dependency_resolver = dependency_resolver;
+		nodes = new HashMap<>();
+	}
+	
+	/**
+	 * Each class creation starts as soon as its dependencies are created. Wait the end of all creations.
+	 * @throws ReflectiveOperationException the first creation error
+	 */
+	void run(Collection<Class<?>> single_instance_classes) throws ReflectiveOperationException {
+		for (Class<?> single_instance_class : single_instance_classes) {
+			getNode(single_instance_class);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("Warm up " + nodes.size() + " SingleInstance classes: " + nodes.keySet());
+		}
+		
+		try {
+			CompletableFuture.allOf(nodes.values().toArray(new CompletableFuture<?>[nodes.size()])).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ReflectiveOperationException("Interrupted during the warm up", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CompletionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof ReflectiveOperationException) {
+				throw (ReflectiveOperationException) cause;
+			}
+			throw new InvocationTargetException(cause, "Can't warm up SingleInstance classes");
+		}
+	}
+	
+	/**
+	 * Recursive, the dependency cycles are already checked by the creation plans.
+	 */
+	private CompletableFuture<Object> getNode(Class<?> single_instance_class) throws ReflectiveOperationException {
+		CompletableFuture<Object> node = nodes.get(single_instance_class);
+		if (node != null) {
+			return node;
+		}
+		
+		Set<Class<?>> dependencies = dependency_resolver.getSingleInstanceDependencies(single_instance_class);
+		CompletableFuture<?>[] dependency_nodes = new CompletableFuture<?>[dependencies.size()];
+		int pos = 0;
+		for (Class<?> dependency : dependencies) {
+			dependency_nodes[pos++] = getNode(dependency);
+		}
+		
+		node = CompletableFuture.allOf(dependency_nodes).thenApplyAsync(v -> {
+			try {
+				return creator.create(single_instance_class);
+			} catch (ReflectiveOperationException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+		nodes.put(single_instance_class, node);
+		return node;
+	}
+	
+}
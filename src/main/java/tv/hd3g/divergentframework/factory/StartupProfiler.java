@@ -0,0 +1,172 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durations of the Factory boot phases, thread safe.
+ * Phases can be nested (like a SingleInstance created during an another SingleInstance creation), so the totals can be more
+ * than the real time.
+ * @see Factory#setStartupProfiler(StartupProfiler)
+ */
+public class StartupProfiler {
+	
+	public enum Phase {
+		/**
+		 * Classpath items list and canonicalization
+		 */
+		CLASSPATH,
+		/**
+		 * Search classes in a package, with the classpath index
+		 */
+		CLASSPATH_SCAN,
+		GSON_KIT,
+		CONFIGURATOR,
+		MNEMONIC_LOADING,
+		CONFIGURATION_SCAN,
+		SINGLE_INSTANCE;
+	}
+	
+	public static class Entry {
+		private final Phase phase;
+		private final String detail;
+		private final long start;
+		private final long duration;
+		private final String thread_name;
+		
+		private Entry(Phase phase, String detail, long start, long duration) {
+			this.phase = phase;
+			this.detail = detail;
+			this.start = start;
+			this.duration = duration;
+			thread_name = Thread.currentThread().getName();
+		}
+		
+		public Phase getPhase() {
+			return phase;
+		}
+		
+		/**
+		 * @return maybe null
+		 */
+		public String getDetail() {
+			return detail;
+		}
+		
+		/**
+		 * @return since the profiler creation
+		 */
+		public long getStart(TimeUnit unit) {
+			return unit.convert(start, TimeUnit.NANOSECONDS);
+		}
+		
+		public long getDuration(TimeUnit unit) {
+			return unit.convert(duration, TimeUnit.NANOSECONDS);
+		}
+		
+		public String getThreadName() {
+			return thread_name;
+		}
+		
+		public String toString() {
+			String result = String.format(Locale.ENGLISH, "+%10.3f ms %10.3f ms  %-18s [%s]", start / 1_000_000d, duration / 1_000_000d, phase, thread_name);
+			if (detail != null) {
+				return result + " " + detail;
+			}
+			return result;
+		}
+	}
+	
+	private final long created;
+	private final ConcurrentLinkedQueue<Entry> entries;
+	
+	public StartupProfiler() {
+		created = System.nanoTime();
+		entries = new ConcurrentLinkedQueue<>();
+	}
+	
+	/**
+	 * @param detail can be null
+	 * @param start_nano_time the System.nanoTime() value at the phase start. The phase end is now.
+	 */
+	public void record(Phase phase, String detail, long start_nano_time) {
+		if (phase == null) {
+			throw new NullPointerException("\"phase\" can't to be null");
+		}
+		entries.add(new Entry(phase, detail, start_nano_time - created, System.nanoTime() - start_nano_time));
+	}
+	
+	/**
+	 * @return sorted by start
+	 */
+	public List<Entry> getEntries() {
+		ArrayList<Entry> result = new ArrayList<>(entries);
+		result.sort(Comparator.comparingLong(entry -> entry.start));
+		return result;
+	}
+	
+	public long getTotalTime(Phase phase, TimeUnit unit) {
+		return unit.convert(entries.stream().filter(entry -> entry.phase == phase).mapToLong(entry -> entry.duration).sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	public void clear() {
+		entries.clear();
+	}
+	
+	/**
+	 * @return totals by phase, and all entries sorted by start.
+	 */
+	public String getReport() {
+		List<Entry> all_entries = getEntries();
+		EnumMap<Phase, long[]> totals = new EnumMap<>(Phase.class);
+		all_entries.forEach(entry -> {
+			long[] total = totals.computeIfAbsent(entry.phase, p -> new long[2]);
+			total[0]++;
+			total[1] += entry.duration;
+		});
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("Startup phases, total by phase:").append(System.lineSeparator());
+		totals.forEach((phase, total) -> {
+			sb.append(String.format(Locale.ENGLISH, "  %-18s %6d time(s) %10.3f ms", phase, total[0], total[1] / 1_000_000d));
+			sb.append(System.lineSeparator());
+		});
+		sb.append("Startup phases, by start:").append(System.lineSeparator());
+		all_entries.forEach(entry -> {
+			sb.append("  ").append(entry).append(System.lineSeparator());
+		});
+		return sb.toString();
+	}
+	
+	public void dump(PrintStream out) {
+		out.print(getReport());
+		out.flush();
+	}
+	
+	public String toString() {
+		return getReport();
+	}
+	
+}
@@ -17,6 +17,8 @@
 package tv.hd3g.divergentframework.factory.configuration;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.log4j.Logger;
 
@@ -35,8 +37,17 @@ class ClassConfigurator {
 	
 	final GsonKit gson_kit;
 	final Function<Class<?>, Object> instanceNewObjectFromClass;
+	private final Consumer<Class<?>> onNewClassDefinition;
 	
 	ClassConfigurator(GsonKit gson_kit, Function<Class<?>, Object> instanceNewObjectFromClass) {
+		this(gson_kit, instanceNewObjectFromClass, type -> {
+		});
+	}
+	
+	/**
+	 * @param onNewClassDefinition called one time by analyzed class
+	 */
+	ClassConfigurator(GsonKit gson_kit, Function<Class<?>, Object> instanceNewObjectFromClass, Consumer<Class<?>> onNewClassDefinition) {
 		this.gson_kit = gson_kit;
 		if (gson_kit == null) {
 			throw new NullPointerException("\"gson_kit\" can't to be null");
@@ -46,15 +57,25 @@ class ClassConfigurator {
 			throw new NullPointerException("\"instanceNewObjectFromClass\" can't to be null");
 		}
 		
+		this.onNewClassDefinition = onNewClassDefinition;
+		if (onNewClassDefinition == null) {
+			throw new NullPointerException("\"onNewClassDefinition\" can't to be null");
+		}
+		
 		class_definitions = new ConcurrentHashMap<>();
 	}
 	
 	ClassDefinition getClassDefinitionFrom(Class<?> from_type) {
 		return class_definitions.computeIfAbsent(from_type, type -> {
+			onNewClassDefinition.accept(type);
 			return new ClassDefinition(type, this);
 		});
 	}
 	
+	void removeClassDefinitions(Predicate<Class<?>> filter) {
+		class_definitions.keySet().removeIf(filter);
+	}
+	
 	boolean isClassIsBlacklisted(Class<?> from_type) {
 		if (from_type.isArray()) {
 			throw new ClassCastException("Can't push configuration in an Array");
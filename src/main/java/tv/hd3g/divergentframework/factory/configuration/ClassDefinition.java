@@ -18,9 +18,11 @@ package tv.hd3g.divergentframework.factory.configuration;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,6 +35,7 @@ import com.google.gson.JsonSyntaxException;
 
 import tv.hd3g.divergentframework.factory.GsonKit;
 import tv.hd3g.divergentframework.factory.configuration.annotations.OnAfterInjectConfiguration;
+import tv.hd3g.divergentframework.factory.index.ComponentIndex;
 
 class ClassDefinition {
 	private static Logger log = Logger.getLogger(ClassDefinition.class);
@@ -61,6 +64,13 @@ class ClassDefinition {
 		}
 		
 		field_definitions = new HashMap<>();
+		ComponentIndex index = ComponentIndex.get(target_class);
+		/**
+		 * If the index don't match the callbacks, it's not used for the fields too.
+		 */
+		List<Method> indexed_callbacks = getIndexedCallbacks(index.getOnAfterInjectConfigurationMethodNames(target_class));
+		List<String> indexed_validated_fields = indexed_callbacks != null ? index.getValidatedFieldNames(target_class) : null;
+		Map<String, String> indexed_generic_types = indexed_callbacks != null ? index.getTargetGenericClassTypeNames(target_class) : null;
 		
 		Arrays.asList(target_class.getDeclaredFields()).stream().filter(f -> {
 			return Modifier.isStatic(f.getModifiers()) == false;
@@ -69,9 +79,17 @@ class ClassDefinition {
 		}).filter(m -> {
 			return m.trySetAccessible();
 		}).forEach(f -> {
-			field_definitions.put(f.getName(), new FieldDefinition(this, f));
+			field_definitions.put(f.getName(), new FieldDefinition(this, f, indexed_validated_fields, indexed_generic_types));
 		});
 		
+		if (indexed_callbacks != null) {
+			/**
+			 * Class was compiled with ComponentIndexProcessor: no needs to scan all methods.
+			 */
+			allCallbacksOnAfterInjectConfiguration = indexed_callbacks;
+			return;
+		}
+		
 		/**
 		 * Class.getDeclaredMethods() gets public, protected, package and private methods, but excludes inherited methods.
 		 */
@@ -102,6 +120,37 @@ class ClassDefinition {
 		allCallbacksOnAfterInjectConfiguration = all_methods.stream().filter(annotationOnAfterInjectConfiguration).collect(Collectors.toList());
 	}
 	
+	/**
+	 * Check each indexed method against its runtime annotation.
+	 * @param method_names from ComponentIndex, null if the class is not indexed
+	 * @return null if the class is not indexed, or if the index don't match the class (outdated index): all methods will be scanned.
+	 */
+	private List<Method> getIndexedCallbacks(List<String> method_names) {
+		if (method_names == null) {
+			return null;
+		}
+		ArrayList<Method> result = new ArrayList<>(method_names.size());
+		for (String method_name : method_names) {
+			Method method = null;
+			try {
+				method = target_class.getDeclaredMethod(method_name);
+			} catch (NoSuchMethodException e) {
+				try {
+					method = target_class.getMethod(method_name);
+				} catch (NoSuchMethodException e2) {
+				}
+			}
+			if (method == null || method.getAnnotation(OnAfterInjectConfiguration.class) == null || Modifier.isStatic(method.getModifiers())) {
+				log.warn("Indexed callback method " + method_name + " don't match with " + target_class + ", the component index is outdated: ignore it for this class");
+				return null;
+			}
+			if (method.trySetAccessible()) {
+				result.add(method);
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * Only update instance fields declared in configuration_tree.
 	 * Don't callback class annotations.
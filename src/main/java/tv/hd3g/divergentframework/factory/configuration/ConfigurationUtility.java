@@ -22,11 +22,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,11 +41,16 @@ import com.google.gson.JsonObject;
 import tv.hd3g.divergentframework.factory.Factory;
 import tv.hd3g.divergentframework.factory.GsonKit;
 import tv.hd3g.divergentframework.factory.GsonKit.KeyValueNullContentMergeBehavior;
+import tv.hd3g.divergentframework.factory.StartupProfiler;
+import tv.hd3g.divergentframework.factory.StartupProfiler.Phase;
+import tv.hd3g.divergentframework.factory.jfr.ConfigurationClassUpdateEvent;
+import tv.hd3g.divergentframework.factory.jfr.ConfigurationFileParseEvent;
 
 public class ConfigurationUtility {
 	private static Logger log = Logger.getLogger(ConfigurationUtility.class);
 	
 	private final Factory factory;
+	private final ConfigurationUtility parent;
 	private final GsonKit gson_kit;
 	private final HashMap<String, Class<?>> class_mnemonics;
 	private final ClassConfigurator class_configurator;
@@ -53,19 +60,35 @@ public class ConfigurationUtility {
 	private final ArrayList<File> watched_configuration_files_and_dirs;
 	
 	public ConfigurationUtility(Factory factory) {
+		this(factory, null);
+	}
+	
+	/**
+	 * For a child Factory: reuse parent GsonKit and class definitions, and read parent mnemonics and configurations if they are not set here.
+	 * Configuration sub-objects are created by the parent Factory.
+	 * @param parent can be null
+	 */
+	public ConfigurationUtility(Factory factory, ConfigurationUtility parent) {
 		this.factory = factory;
 		if (factory == null) {
 			throw new NullPointerException("\"factory\" can't to be null");
 		}
+		this.parent = parent;
 		class_mnemonics = new HashMap<>();
-		gson_kit = factory.createGsonKit();
-		class_configurator = new ClassConfigurator(gson_kit, c -> {
-			try {
-				return factory.create(c);
-			} catch (ReflectiveOperationException e) {
-				throw new RuntimeException("Can't instance class " + c, e);
-			}
-		});
+		
+		if (parent != null) {
+			gson_kit = parent.gson_kit;
+			class_configurator = parent.class_configurator;
+		} else {
+			gson_kit = factory.createGsonKit();
+			class_configurator = new ClassConfigurator(gson_kit, c -> {
+				try {
+					return factory.create(c);
+				} catch (ReflectiveOperationException e) {
+					throw new RuntimeException("Can't instance class " + c, e);
+				}
+			}, factory::recordClass);
+		}
 		
 		configured_types = new ConcurrentHashMap<>();
 		configuration_files = new ArrayList<>();
@@ -87,6 +110,7 @@ public class ConfigurationUtility {
 		}
 		
 		log.info("Load mnemonic conf file " + conf_file);
+		long start = System.nanoTime();
 		
 		Properties p = new Properties();
 		FileInputStream fis = new FileInputStream(conf_file);
@@ -108,9 +132,17 @@ public class ConfigurationUtility {
 			log.trace("Load mnemonic definitions" + class_mnemonics);
 		}
 		
+		profile(Phase.MNEMONIC_LOADING, conf_file.getPath(), start);
 		return this;
 	}
 	
+	private void profile(Phase phase, String detail, long start) {
+		StartupProfiler profiler = factory.getStartupProfiler();
+		if (profiler != null) {
+			profiler.record(phase, detail, start);
+		}
+	}
+	
 	/**
 	 * @param search all files in list and in dirs (don't search in sub dir).
 	 * @return this
@@ -149,6 +181,7 @@ public class ConfigurationUtility {
 	 * @return this
 	 */
 	public ConfigurationUtility scanImportedFiles() {
+		long start = System.nanoTime();
 		synchronized (watched_configuration_files_and_dirs) {
 			List<File> last_current_founded_files = watched_configuration_files_and_dirs.stream().flatMap(file -> {
 				if (file.isFile()) {
@@ -203,18 +236,18 @@ public class ConfigurationUtility {
 						/**
 						 * @return null if it can't found class
 						 */
-						if (class_mnemonics.containsKey(mnemonic)) {
-							return class_mnemonics.get(mnemonic);
-						} else {
-							return factory.getClassByName(mnemonic);
+						Class<?> from_mnemonic = getClassByMnemonic(mnemonic);
+						if (from_mnemonic != null) {
+							return from_mnemonic;
 						}
+						return factory.getClassByName(mnemonic);
 					});
 				}).map(file -> {
 					try {
 						/**
 						 * Test new syntax
 						 */
-						file.parseFile();
+						parseFile(file);
 						return file;
 					} catch (IOException e) {
 						log.error("Can't parse config file " + file, e);
@@ -256,11 +289,17 @@ public class ConfigurationUtility {
 						try {
 							log.info("Found an updated config file: " + conf);
 							
-							conf.parseFile().stream().forEach(set_updated_class_name -> {
+							parseFile(conf).stream().forEach(set_updated_class_name -> {
 								JsonObject new_config_for_class = conf.config_tree_by_class.get(set_updated_class_name);
 								
+								ConfigurationClassUpdateEvent event = new ConfigurationClassUpdateEvent();
+								event.begin();
+								
 								if (configured_types.containsKey(set_updated_class_name)) {
 									ConfiguredClass<?> current_class_entry = configured_types.get(set_updated_class_name);
+									if (log.isDebugEnabled()) {
+										log.debug("Configuration changes for " + set_updated_class_name.getName() + ": " + GsonKit.jsonDiff(current_class_entry.getActualConfiguration(), new_config_for_class));
+									}
 									if (class_conf_to_update.containsKey(current_class_entry)) {
 										GsonKit.jsonMerge(class_conf_to_update.get(current_class_entry), new_config_for_class, KeyValueNullContentMergeBehavior.KEEP);
 									} else {
@@ -269,6 +308,14 @@ public class ConfigurationUtility {
 								} else {
 									configured_types.put(set_updated_class_name, new ConfiguredClass<>(class_configurator, gson_kit.getGson(), set_updated_class_name, new_config_for_class));
 								}
+								
+								event.end();
+								if (event.shouldCommit()) {
+									event.class_name = set_updated_class_name.getName();
+									event.configuration_size = new_config_for_class.size();
+									event.instance_count = configured_types.get(set_updated_class_name).getInstanceCount();
+									event.commit();
+								}
 							});
 						} catch (IOException e) {
 							log.error("Can't read/parse file " + conf.linked_file, e);
@@ -290,19 +337,78 @@ public class ConfigurationUtility {
 					});
 				}
 			}
+			profile(Phase.CONFIGURATION_SCAN, last_current_founded_files.size() + " files", start);
+		}
+		return this;
+	}
+	
+	/**
+	 * @return set/updated class conf
+	 */
+	private static List<Class<?>> parseFile(ConfigurationFile c_file) throws IOException {
+		ConfigurationFileParseEvent event = new ConfigurationFileParseEvent();
+		event.begin();
+		List<Class<?>> result = c_file.parseFile();
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = c_file.linked_file.getPath();
+			event.size = c_file.linked_file.length();
+			event.class_count = result.size();
+			event.commit();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return null if not found here or in parent
+	 */
+	private Class<?> getClassByMnemonic(String mnemonic) {
+		Class<?> result = class_mnemonics.get(mnemonic);
+		if (result == null && parent != null) {
+			return parent.getClassByMnemonic(mnemonic);
+		}
+		return result;
+	}
+	
+	/**
+	 * Forget the mnemonics, configurations and class definitions for the classes matching filter, like before a plugin unload.
+	 * Call scanImportedFiles for found again the configurations, with the actual classes.
+	 * @return this
+	 */
+	public ConfigurationUtility forgetClasses(Predicate<Class<?>> filter) {
+		synchronized (watched_configuration_files_and_dirs) {
+			class_mnemonics.values().removeIf(filter);
+			synchronized (configuration_files) {
+				configuration_files.forEach(c_file -> {
+					c_file.config_tree_by_class.keySet().removeIf(filter);
+				});
+				synchronized (configured_types) {
+					configured_types.keySet().removeIf(filter);
+				}
+			}
 		}
+		class_configurator.removeClassDefinitions(filter);
 		return this;
 	}
 	
+	/**
+	 * @return true if configured here, or by the parent
+	 */
 	public boolean isClassIsConfigured(Class<?> reference_class) {
-		return configured_types.containsKey(reference_class);
+		if (configured_types.containsKey(reference_class)) {
+			return true;
+		}
+		return parent != null && parent.isClassIsConfigured(reference_class);
 	}
 	
 	/**
 	 * @param target_class do nothing if it's not configured.
 	 */
 	public <T> void addNewClassInstanceToConfigure(T instance_to_configure, Class<T> target_class) {
-		if (isClassIsConfigured(target_class) == false) {
+		if (configured_types.containsKey(target_class) == false) {
+			if (parent != null) {
+				parent.addNewClassInstanceToConfigure(instance_to_configure, target_class);
+			}
 			return;
 		}
 		
@@ -311,4 +417,20 @@ public class ConfigurationUtility {
 		c_e.setupInstance(instance_to_configure);
 	}
 	
+	/**
+	 * Like addNewClassInstanceToConfigure, but the class configuration is searched only one time for all instances.
+	 */
+	public <T> void addNewClassInstancesToConfigure(Collection<T> instances_to_configure, Class<T> target_class) {
+		if (configured_types.containsKey(target_class) == false) {
+			if (parent != null) {
+				parent.addNewClassInstancesToConfigure(instances_to_configure, target_class);
+			}
+			return;
+		}
+		
+		@SuppressWarnings("unchecked")
+		ConfiguredClass<T> c_e = (ConfiguredClass<T>) configured_types.get(target_class);
+		c_e.setupInstances(instances_to_configure);
+	}
+	
 }
@@ -17,6 +17,9 @@
 package tv.hd3g.divergentframework.factory.configuration;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -24,7 +27,10 @@ import com.google.gson.JsonObject;
 class ConfiguredClass<T> {
 	
 	private final ClassConfigurator class_configurator;
-	private final ArrayList<T> created_instances;
+	/**
+	 * Synchronized: createAsync and createMany setup instances from pool threads.
+	 */
+	private final List<T> created_instances;
 	private final Class<T> target_class;
 	
 	private volatile JsonObject actual_class_configuration;
@@ -42,7 +48,7 @@ class ConfiguredClass<T> {
 			throw new RuntimeException("Can't configure " + target_class + ", this is blacklisted");
 		}
 		
-		created_instances = new ArrayList<>(1);
+		created_instances = Collections.synchronizedList(new ArrayList<>(1));
 		actual_class_configuration = class_configuration.deepCopy();
 	}
 	
@@ -57,6 +63,32 @@ class ConfiguredClass<T> {
 		created_instances.add(instance);
 	}
 	
+	/**
+	 * Like setupInstance, but with only one configuration read for all instances.
+	 */
+	void setupInstances(Collection<T> instances) {
+		instances.forEach(instance -> {
+			if (target_class.isAssignableFrom(instance.getClass()) == false) {
+				throw new ClassCastException(instance.getClass().getName() + " is not assignable from " + target_class.getName());
+			}
+		});
+		
+		JsonObject class_configuration = actual_class_configuration;
+		instances.forEach(instance -> {
+			class_configurator.configureNewObjectWithJson(target_class, instance, class_configuration);
+		});
+		
+		created_instances.addAll(instances);
+	}
+	
+	JsonObject getActualConfiguration() {
+		return actual_class_configuration;
+	}
+	
+	int getInstanceCount() {
+		return created_instances.size();
+	}
+	
 	public String toString() {
 		return target_class + " (for " + created_instances.size() + " instance(s))";
 	}
@@ -21,6 +21,7 @@ import java.lang.reflect.InaccessibleObjectException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,7 +51,11 @@ class FieldDefinition {
 	Class<?> target_generic_class_type;
 	final List<Class<? extends DefaultValidator>> validators;
 	
-	FieldDefinition(ClassDefinition class_definition, Field field) {
+	/**
+	 * @param indexed_validated_fields from ComponentIndex, null if the class is not indexed
+	 * @param indexed_generic_types from ComponentIndex, null if the class is not indexed
+	 */
+	FieldDefinition(ClassDefinition class_definition, Field field, List<String> indexed_validated_fields, Map<String, String> indexed_generic_types) {
 		this.class_definition = class_definition;
 		if (class_definition == null) {
 			throw new NullPointerException("\"class_definition\" can't to be null");
@@ -64,17 +69,41 @@ class FieldDefinition {
 		type = field.getType();
 		
 		if (type.isAssignableFrom(LinkedHashMap.class) | type.isAssignableFrom(ArrayList.class)) {
-			TargetGenericClassType tgct = field.getAnnotation(TargetGenericClassType.class);
-			if (tgct == null) {
-				log.warn("Missing @" + TargetGenericClassType.class.getSimpleName() + " annotation in class " + class_definition.target_class.getName() + " for field " + field.getName());
-			} else {
-				target_generic_class_type = tgct.value();
+			if (indexed_generic_types != null && indexed_generic_types.containsKey(field.getName())) {
+				target_generic_class_type = getIndexedClass(indexed_generic_types.get(field.getName()));
+			}
+			if (target_generic_class_type == null) {
+				TargetGenericClassType tgct = field.getAnnotation(TargetGenericClassType.class);
+				if (tgct == null) {
+					log.warn("Missing @" + TargetGenericClassType.class.getSimpleName() + " annotation in class " + class_definition.target_class.getName() + " for field " + field.getName());
+				} else {
+					target_generic_class_type = tgct.value();
+				}
 			}
 		}
 		
-		validators = Arrays.asList(field.getAnnotationsByType(ConfigurableValidator.class)).stream().map(c_v -> {
-			return c_v.value();
-		}).collect(Collectors.toList());
+		if (indexed_validated_fields != null && indexed_validated_fields.contains(field.getName()) == false) {
+			/**
+			 * The index knows there are no validators here: don't read the annotations.
+			 */
+			validators = Collections.emptyList();
+		} else {
+			validators = Arrays.asList(field.getAnnotationsByType(ConfigurableValidator.class)).stream().map(c_v -> {
+				return c_v.value();
+			}).collect(Collectors.toList());
+		}
+	}
+	
+	/**
+	 * @return null if not found (outdated index), for read the annotation.
+	 */
+	private Class<?> getIndexedClass(String class_name) {
+		try {
+			return Class.forName(class_name, false, field.getDeclaringClass().getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			log.warn("Can't found indexed class " + class_name + " for field " + field.getName() + ", the component index is outdated");
+			return null;
+		}
 	}
 	
 	@SuppressWarnings("unchecked")
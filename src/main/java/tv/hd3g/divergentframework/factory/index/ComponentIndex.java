@@ -0,0 +1,216 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Read the component index resources, written during the compilation by ComponentIndexProcessor.
+ * Format (properties): full.class.Name=[singleinstance [lazy]] [callback:methodName]... [validated:fieldName]... [generic:fieldName:full.class.Name]...
+ * A class absent from the index was not compiled with the processor: the callers must use reflection for it.
+ */
+public class ComponentIndex {
+	private static Logger log = Logger.getLogger(ComponentIndex.class);
+	
+	public static final String RESOURCE_NAME = "META-INF/divergentframework/component-index.properties";
+	
+	static final String SINGLE_INSTANCE = "singleinstance";
+	static final String LAZY = "lazy";
+	static final String CALLBACK = "callback:";
+	static final String VALIDATED = "validated:";
+	static final String GENERIC = "generic:";
+	
+	/**
+	 * Weak keys: don't keep unloaded plugins ClassLoaders.
+	 */
+	private static final Map<ClassLoader, ComponentIndex> indexes_by_class_loader = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	/**
+	 * @param class_loader if null, the system ClassLoader
+	 * @return the index of all the resources visible from class_loader, loaded only one time.
+	 */
+	public static ComponentIndex get(ClassLoader class_loader) {
+		if (class_loader == null) {
+			class_loader = ClassLoader.getSystemClassLoader();
+		}
+		return indexes_by_class_loader.computeIfAbsent(class_loader, ComponentIndex::new);
+	}
+	
+	/**
+	 * Like before a plugin unload.
+	 */
+	public static void forget(ClassLoader class_loader) {
+		indexes_by_class_loader.remove(class_loader);
+	}
+	
+	/**
+	 * @return the index for the ClassLoader of this class.
+	 */
+	public static ComponentIndex get(Class<?> indexed_class) {
+		return get(indexed_class.getClassLoader());
+	}
+	
+	private static class Entry {
+		final boolean single_instance;
+		final boolean lazy;
+		final List<String> callbacks;
+		final List<String> validated_fields;
+		final Map<String, String> target_generic_class_types;
+		
+		Entry(String raw_entry) {
+			boolean _single_instance = false;
+			boolean _lazy = false;
+			ArrayList<String> _callbacks = new ArrayList<>(1);
+			ArrayList<String> _validated_fields = new ArrayList<>(1);
+			LinkedHashMap<String, String> _target_generic_class_types = new LinkedHashMap<>(1);
+			
+			for (String value : raw_entry.trim().split(" ")) {
+				if (value.equals(SINGLE_INSTANCE)) {
+					_single_instance = true;
+				} else if (value.equals(LAZY)) {
+					_lazy = true;
+				} else if (value.startsWith(CALLBACK)) {
+					_callbacks.add(value.substring(CALLBACK.length()));
+				} else if (value.startsWith(VALIDATED)) {
+					_validated_fields.add(value.substring(VALIDATED.length()));
+				} else if (value.startsWith(GENERIC)) {
+					String[] field_and_type = value.substring(GENERIC.length()).split(":");
+					if (field_and_type.length == 2) {
+						_target_generic_class_types.put(field_and_type[0], field_and_type[1]);
+					}
+				}
+			}
+			single_instance = _single_instance;
+			lazy = _lazy;
+			callbacks = Collections.unmodifiableList(_callbacks);
+			validated_fields = Collections.unmodifiableList(_validated_fields);
+			target_generic_class_types = Collections.unmodifiableMap(_target_generic_class_types);
+		}
+	}
+	
+	private final Map<String, Entry> entries;
+	
+	private ComponentIndex(ClassLoader class_loader) {
+		HashMap<String, Entry> all_entries = new HashMap<>();
+		try {
+			Enumeration<URL> resources = class_loader.getResources(RESOURCE_NAME);
+			while (resources.hasMoreElements()) {
+				URL resource = resources.nextElement();
+				Properties content = new Properties();
+				try (InputStream in = resource.openStream()) {
+					content.load(in);
+				}
+				content.forEach((class_name, raw_entry) -> {
+					all_entries.putIfAbsent((String) class_name, new Entry((String) raw_entry));
+				});
+				log.debug("Load component index " + resource + " (" + content.size() + " classes)");
+			}
+		} catch (IOException e) {
+			log.warn("Can't load component indexes, switch to runtime class scan", e);
+			all_entries.clear();
+		}
+		entries = Collections.unmodifiableMap(all_entries);
+	}
+	
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+	
+	/**
+	 * @return true if this class was compiled with the processor.
+	 */
+	public boolean isIndexed(Class<?> reference_class) {
+		return entries.containsKey(reference_class.getName());
+	}
+	
+	/**
+	 * @return null if not indexed
+	 */
+	public Boolean isSingleInstance(Class<?> reference_class) {
+		Entry entry = entries.get(reference_class.getName());
+		if (entry == null) {
+			return null;
+		}
+		return entry.single_instance;
+	}
+	
+	/**
+	 * @return null if not indexed
+	 */
+	public Boolean isLazySingleInstance(Class<?> reference_class) {
+		Entry entry = entries.get(reference_class.getName());
+		if (entry == null) {
+			return null;
+		}
+		return entry.single_instance && entry.lazy;
+	}
+	
+	/**
+	 * @return null if not indexed. Declared and public inherited methods names, without parameters.
+	 */
+	public List<String> getOnAfterInjectConfigurationMethodNames(Class<?> reference_class) {
+		Entry entry = entries.get(reference_class.getName());
+		if (entry == null) {
+			return null;
+		}
+		return entry.callbacks;
+	}
+	
+	/**
+	 * @return null if not indexed. Field names with one or more ConfigurableValidator.
+	 */
+	public List<String> getValidatedFieldNames(Class<?> reference_class) {
+		Entry entry = entries.get(reference_class.getName());
+		if (entry == null) {
+			return null;
+		}
+		return entry.validated_fields;
+	}
+	
+	/**
+	 * @return null if not indexed. Field name -> TargetGenericClassType class name
+	 */
+	public Map<String, String> getTargetGenericClassTypeNames(Class<?> reference_class) {
+		Entry entry = entries.get(reference_class.getName());
+		if (entry == null) {
+			return null;
+		}
+		return entry.target_generic_class_types;
+	}
+	
+	public Set<String> getSingleInstanceClassNames() {
+		return entries.entrySet().stream().filter(entry -> {
+			return entry.getValue().single_instance;
+		}).map(entry -> entry.getKey()).collect(Collectors.toSet());
+	}
+	
+}
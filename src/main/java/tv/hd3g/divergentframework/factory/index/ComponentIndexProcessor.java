@@ -0,0 +1,235 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import tv.hd3g.divergentframework.factory.SingleInstance;
+import tv.hd3g.divergentframework.factory.configuration.annotations.ConfigurableValidator;
+import tv.hd3g.divergentframework.factory.configuration.annotations.ConfigurableValidators;
+import tv.hd3g.divergentframework.factory.configuration.annotations.OnAfterInjectConfiguration;
+import tv.hd3g.divergentframework.factory.configuration.annotations.TargetGenericClassType;
+
+/**
+ * Write a ComponentIndex resource with all compiled classes, for let Factory and configuration to not scan classes at runtime.
+ * Declared in META-INF/services, javac will use it if this jar is in the compile classpath, but only for the compilations
+ * that use a framework annotation. Without index, the classes are scanned at runtime.
+ * Previous entries of the resource (from an incremental build) are kept, if their classes are not compiled again.
+ */
+@SupportedAnnotationTypes({ "tv.hd3g.divergentframework.factory.SingleInstance", "tv.hd3g.divergentframework.factory.ThreadInstance", "tv.hd3g.divergentframework.factory.PooledInstance", "tv.hd3g.divergentframework.factory.configuration.annotations.OnAfterInjectConfiguration", "tv.hd3g.divergentframework.factory.configuration.annotations.ConfigurableValidator", "tv.hd3g.divergentframework.factory.configuration.annotations.ConfigurableValidators", "tv.hd3g.divergentframework.factory.configuration.annotations.TargetGenericClassType" })
+public class ComponentIndexProcessor extends AbstractProcessor {
+	
+	private final TreeMap<String, String> entries = new TreeMap<>();
+	
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round_env) {
+		if (round_env.processingOver() == false) {
+			ElementFilter.typesIn(round_env.getRootElements()).forEach(this::indexType);
+			return false;
+		}
+		
+		if (entries.isEmpty()) {
+			return false;
+		}
+		
+		try {
+			writeIndex();
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.WARNING, "Can't write " + ComponentIndex.RESOURCE_NAME + ": " + e.getMessage());
+		}
+		return false;
+	}
+	
+	private void indexType(TypeElement type) {
+		ElementFilter.typesIn(type.getEnclosedElements()).forEach(this::indexType);
+		
+		if (type.getKind() == ElementKind.ANNOTATION_TYPE) {
+			return;
+		}
+		
+		String class_name = processingEnv.getElementUtils().getBinaryName(type).toString();
+		ArrayList<String> values = new ArrayList<>();
+		
+		SingleInstance single_instance = type.getAnnotation(SingleInstance.class);
+		if (single_instance != null) {
+			values.add(ComponentIndex.SINGLE_INSTANCE);
+			if (single_instance.lazy()) {
+				values.add(ComponentIndex.LAZY);
+			}
+		}
+		
+		List<ExecutableElement> callbacks = getAllCallbacks(type);
+		if (callbacks.stream().anyMatch(m -> m.getParameters().isEmpty() == false)) {
+			/**
+			 * Let the runtime checks (and throw an error).
+			 */
+			processingEnv.getMessager().printMessage(Kind.WARNING, "Can't apply a configuration annotation in a method with some parameter(s), in " + class_name, type);
+			return;
+		}
+		callbacks.stream().map(m -> m.getSimpleName().toString()).distinct().forEach(name -> {
+			values.add(ComponentIndex.CALLBACK + name);
+		});
+		
+		ElementFilter.fieldsIn(type.getEnclosedElements()).forEach(field -> {
+			if (hasAnnotation(field, ConfigurableValidator.class.getName()) | hasAnnotation(field, ConfigurableValidators.class.getName())) {
+				values.add(ComponentIndex.VALIDATED + field.getSimpleName());
+			}
+			String generic_type = getTargetGenericClassType(field);
+			if (generic_type != null) {
+				values.add(ComponentIndex.GENERIC + field.getSimpleName() + ":" + generic_type);
+			}
+		});
+		
+		entries.put(class_name, String.join(" ", values));
+	}
+	
+	/**
+	 * Like ClassDefinition: all declared methods, and public inherited methods. Like Class.getMethods, an inherited method
+	 * overridden without the annotation lower in the hierarchy is not a callback.
+	 */
+	private List<ExecutableElement> getAllCallbacks(TypeElement type) {
+		ArrayList<ExecutableElement> result = new ArrayList<>();
+		LinkedHashSet<TypeElement> super_types = new LinkedHashSet<>();
+		collectSuperTypes(type, super_types);
+		
+		super_types.forEach(super_type -> {
+			ElementFilter.methodsIn(super_type.getEnclosedElements()).stream().filter(m -> {
+				return m.getModifiers().contains(Modifier.STATIC) == false && m.getModifiers().contains(Modifier.NATIVE) == false;
+			}).filter(m -> {
+				return super_type.equals(type) | m.getModifiers().contains(Modifier.PUBLIC);
+			}).filter(m -> {
+				return m.getAnnotation(OnAfterInjectConfiguration.class) != null;
+			}).filter(m -> {
+				return super_type.equals(type) || isOverriddenWithoutAnnotation(m, super_type, super_types, type) == false;
+			}).forEach(result::add);
+		});
+		return result;
+	}
+	
+	private boolean isOverriddenWithoutAnnotation(ExecutableElement method, TypeElement declared_in, Set<TypeElement> super_types, TypeElement type) {
+		Types types = processingEnv.getTypeUtils();
+		Elements elements = processingEnv.getElementUtils();
+		return super_types.stream().filter(sub_type -> {
+			return sub_type.equals(declared_in) == false && types.isSubtype(types.erasure(sub_type.asType()), types.erasure(declared_in.asType()));
+		}).flatMap(sub_type -> {
+			return ElementFilter.methodsIn(sub_type.getEnclosedElements()).stream();
+		}).anyMatch(m -> {
+			return m.getAnnotation(OnAfterInjectConfiguration.class) == null && elements.overrides(m, method, type);
+		});
+	}
+	
+	private void collectSuperTypes(TypeElement type, Set<TypeElement> super_types) {
+		if (super_types.add(type) == false) {
+			return;
+		}
+		ArrayList<TypeMirror> parents = new ArrayList<>(type.getInterfaces());
+		parents.add(type.getSuperclass());
+		parents.stream().filter(t -> t.getKind() == TypeKind.DECLARED).map(t -> (TypeElement) ((DeclaredType) t).asElement()).forEach(t -> {
+			collectSuperTypes(t, super_types);
+		});
+	}
+	
+	private static boolean hasAnnotation(Element element, String annotation_name) {
+		return element.getAnnotationMirrors().stream().anyMatch(a -> {
+			return ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation_name);
+		});
+	}
+	
+	/**
+	 * Class values can't be read with getAnnotation during the compilation.
+	 */
+	private String getTargetGenericClassType(VariableElement field) {
+		for (AnnotationMirror a : field.getAnnotationMirrors()) {
+			TypeElement a_type = (TypeElement) a.getAnnotationType().asElement();
+			if (a_type.getQualifiedName().contentEquals(TargetGenericClassType.class.getName()) == false) {
+				continue;
+			}
+			for (AnnotationValue value : a.getElementValues().values()) {
+				Object raw_value = value.getValue();
+				if (raw_value instanceof DeclaredType) {
+					return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) raw_value).asElement()).toString();
+				}
+			}
+		}
+		return null;
+	}
+	
+	private void writeIndex() throws IOException {
+		Properties index = new Properties();
+		
+		/**
+		 * Import previous index, for incremental builds.
+		 */
+		try {
+			FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.RESOURCE_NAME);
+			try (InputStream in = previous.openInputStream()) {
+				index.load(in);
+			}
+			HashSet<String> outdated = new HashSet<>();
+			index.stringPropertyNames().stream().filter(class_name -> {
+				return processingEnv.getElementUtils().getTypeElement(class_name.replace('$', '.')) == null;
+			}).forEach(outdated::add);
+			outdated.forEach(index::remove);
+		} catch (IOException | IllegalArgumentException e) {
+			/**
+			 * No previous index
+			 */
+		}
+		
+		index.putAll(entries);
+		
+		FileObject output = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.RESOURCE_NAME);
+		try (OutputStream out = output.openOutputStream()) {
+			index.store(out, "Generated by " + getClass().getSimpleName());
+		}
+	}
+	
+}
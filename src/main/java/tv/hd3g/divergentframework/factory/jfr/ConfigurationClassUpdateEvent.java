@@ -0,0 +1,43 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tv.hd3g.divergentframework.factory.ConfigurationClassUpdate")
+@Label("Configuration class update")
+@Description("New or updated class configuration during a scan of the imported files")
+@Category({ "Divergent Framework", "Configuration" })
+@StackTrace(false)
+public class ConfigurationClassUpdateEvent extends jdk.jfr.Event {
+	
+	@Label("Class")
+	public String class_name;
+	
+	@Label("Configuration size")
+	@Description("Root entries count in the class configuration")
+	public int configuration_size;
+	
+	@Label("Instance count")
+	@Description("Instances already created with this configuration")
+	public int instance_count;
+	
+}
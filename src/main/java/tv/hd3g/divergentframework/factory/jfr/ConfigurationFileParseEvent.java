@@ -0,0 +1,44 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tv.hd3g.divergentframework.factory.ConfigurationFileParse")
+@Label("Configuration file parse")
+@Description("Configuration file read and parsed during a scan of the imported files")
+@Category({ "Divergent Framework", "Configuration" })
+@StackTrace(false)
+public class ConfigurationFileParseEvent extends jdk.jfr.Event {
+	
+	@Label("Path")
+	public String path;
+	
+	@Label("Size")
+	@DataAmount
+	public long size;
+	
+	@Label("Class count")
+	@Description("Configured classes in this file")
+	public int class_count;
+	
+}
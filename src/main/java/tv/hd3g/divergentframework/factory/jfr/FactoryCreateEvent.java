@@ -0,0 +1,42 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tv.hd3g.divergentframework.factory.Create")
+@Label("Factory create")
+@Description("Factory.create and Factory.createMany calls")
+@Category({ "Divergent Framework", "Factory" })
+@StackTrace(false)
+public class FactoryCreateEvent extends jdk.jfr.Event {
+	
+	@Label("Class")
+	@Description("Requested class or interface")
+	public String class_name;
+	
+	@Label("Lifecycle")
+	public String lifecycle;
+	
+	@Label("Instance count")
+	public int instance_count;
+	
+}
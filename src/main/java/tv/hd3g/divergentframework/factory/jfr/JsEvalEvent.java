@@ -0,0 +1,44 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tv.hd3g.divergentframework.factory.JsEval")
+@Label("JS eval")
+@Category({ "Divergent Framework", "JavaScript" })
+@StackTrace(false)
+public class JsEvalEvent extends jdk.jfr.Event {
+	
+	@Label("Source")
+	public String source_name;
+	
+	/**
+	 * UTF-8 bytes
+	 */
+	@Label("Size")
+	@DataAmount
+	public long size;
+	
+	@Label("Line count")
+	public int line_count;
+	
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tv.hd3g.divergentframework.factory.WatchFolderScan")
+@Label("WatchFolder directory scan")
+@Category({ "Divergent Framework", "WatchFolder" })
+@StackTrace(false)
+public class WatchFolderScanEvent extends jdk.jfr.Event {
+	
+	@Label("Path")
+	public String path;
+	
+	@Label("Item count")
+	public int item_count;
+	
+	@Label("Added count")
+	public int added_count;
+	
+	@Label("Deleted count")
+	public int deleted_count;
+	
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory.js;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptException;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+
+/**
+ * Keep evaluated JS sources for instanceTypeFromJs, for not parse and eval the same JS source for each new instance.
+ * A JS file is evaluated again if its date or size has changed, a JS URL if its content has changed.
+ * Sources are only checked after a revalidation period (a longer one for URLs, as each check downloads the content), and
+ * outside the lock used by the creations.
+ * Beware: all instances created from the same JS source share the same JS object (and its JS state).
+ */
+@SuppressWarnings("deprecation")
+public class JsScriptCache {
+	private static Logger log = Logger.getLogger(JsScriptCache.class);
+	
+	private final JsToolkit js_toolkit;
+	private final ConcurrentHashMap<String, EvaluatedScript> evaluated_scripts;
+	private volatile long revalidation_period;
+	private volatile long url_revalidation_period;
+	
+	public JsScriptCache(JsToolkit js_toolkit) {
+		this.js_toolkit = js_toolkit;
+		if (js_toolkit == null) {
+			throw new NullPointerException("\"js_toolkit\" can't to be null");
+		}
+		evaluated_scripts = new ConcurrentHashMap<>();
+		revalidation_period = 1000;
+		url_revalidation_period = 60_000;
+	}
+	
+	/**
+	 * 1 sec by default. 0 for check source on each call.
+	 * @return this
+	 */
+	public JsScriptCache setRevalidationPeriod(long revalidation_period, TimeUnit unit) {
+		if (revalidation_period < 0) {
+			throw new IllegalArgumentException("Invalid revalidation_period: " + revalidation_period);
+		}
+		this.revalidation_period = unit.toMillis(revalidation_period);
+		return this;
+	}
+	
+	public long getRevalidationPeriod(TimeUnit unit) {
+		return unit.convert(revalidation_period, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * For the JS URLs, 1 min by default. 0 for check (download) source on each call.
+	 * @return this
+	 */
+	public JsScriptCache setUrlRevalidationPeriod(long url_revalidation_period, TimeUnit unit) {
+		if (url_revalidation_period < 0) {
+			throw new IllegalArgumentException("Invalid url_revalidation_period: " + url_revalidation_period);
+		}
+		this.url_revalidation_period = unit.toMillis(url_revalidation_period);
+		return this;
+	}
+	
+	public long getUrlRevalidationPeriod(TimeUnit unit) {
+		return unit.convert(url_revalidation_period, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Forget all evaluated sources.
+	 * @return this
+	 */
+	public JsScriptCache clear() {
+		evaluated_scripts.clear();
+		return this;
+	}
+	
+	public int size() {
+		return evaluated_scripts.size();
+	}
+	
+	public <T> T instanceTypeFromJs(Class<T> type, File js_file, boolean all_methods_must_be_provisioned) throws IOException, ScriptException {
+		EvaluatedScript script = evaluated_scripts.computeIfAbsent("file:" + js_file.getPath(), k -> new EvaluatedFileScript(js_file));
+		return script.instanceTypeFromJs(type, all_methods_must_be_provisioned);
+	}
+	
+	public <T> T instanceTypeFromJs(Class<T> type, URL js_url, boolean all_methods_must_be_provisioned) throws IOException, ScriptException {
+		EvaluatedScript script = evaluated_scripts.computeIfAbsent("url:" + js_url.toString(), k -> new EvaluatedUrlScript(js_url));
+		return script.instanceTypeFromJs(type, all_methods_must_be_provisioned);
+	}
+	
+	private abstract class EvaluatedScript {
+		final String source_name;
+		private long last_check;
+		private boolean checking;
+		private ArrayList<String> file_lines;
+		private ScriptObjectMirror js_content;
+		
+		EvaluatedScript(String source_name) {
+			this.source_name = source_name;
+		}
+		
+		/**
+		 * @return true if the source has changed since the last call.
+		 */
+		abstract boolean checkSourceChange() throws IOException;
+		
+		/**
+		 * @return the last checked source, never null after a checkSourceChange call.
+		 */
+		abstract ArrayList<String> readSource() throws IOException;
+		
+		abstract long getRevalidationPeriod();
+		
+		<T> T instanceTypeFromJs(Class<T> type, boolean all_methods_must_be_provisioned) throws IOException, ScriptException {
+			ScriptObjectMirror actual_js_content;
+			ArrayList<String> actual_file_lines;
+			boolean must_check = false;
+			
+			synchronized (this) {
+				long now = System.currentTimeMillis();
+				if (js_content == null) {
+					last_check = now;
+					checkSourceChange();
+					evalSource(readSource());
+				} else if (checking == false && now - last_check >= getRevalidationPeriod()) {
+					last_check = now;
+					checking = true;
+					must_check = true;
+				}
+				actual_js_content = js_content;
+				actual_file_lines = file_lines;
+			}
+			
+			if (must_check) {
+				/**
+				 * Only one thread checks the source, the others threads continue with the actual js_content.
+				 */
+				try {
+					if (checkSourceChange()) {
+						log.info("JS source has changed, eval it again: " + source_name);
+						synchronized (this) {
+							evalSource(readSource());
+							actual_js_content = js_content;
+							actual_file_lines = file_lines;
+						}
+					}
+				} finally {
+					synchronized (this) {
+						checking = false;
+					}
+				}
+			}
+			
+			try {
+				return js_toolkit.instanceTypeFromJs(type, actual_js_content, all_methods_must_be_provisioned, source_name, actual_file_lines);
+			} catch (ScriptException e) {
+				js_toolkit.showError(actual_file_lines, source_name, e);
+				throw e;
+			}
+		}
+		
+		/**
+		 * On error, the next call will eval again the source.
+		 */
+		private void evalSource(ArrayList<String> lines) throws ScriptException {
+			file_lines = null;
+			js_content = null;
+			
+			Object raw_js_interface = js_toolkit.eval(lines, source_name);
+			if (raw_js_interface == null) {
+				throw new NullPointerException("Javascript return null content.");
+			} else if (raw_js_interface instanceof ScriptObjectMirror == false) {
+				throw new ScriptException("Javascript don't return a complex item (ScriptObjectMirror)");
+			}
+			file_lines = lines;
+			js_content = (ScriptObjectMirror) raw_js_interface;
+		}
+	}
+	
+	private class EvaluatedFileScript extends EvaluatedScript {
+		private final File js_file;
+		private long last_modified;
+		private long length;
+		
+		EvaluatedFileScript(File js_file) {
+			super(js_file.getPath());
+			this.js_file = js_file;
+		}
+		
+		boolean checkSourceChange() {
+			long actual_last_modified = js_file.lastModified();
+			long actual_length = js_file.length();
+			if (actual_last_modified == last_modified && actual_length == length) {
+				return false;
+			}
+			last_modified = actual_last_modified;
+			length = actual_length;
+			return true;
+		}
+		
+		ArrayList<String> readSource() throws IOException {
+			log.debug("Load and eval JS file: " + js_file);
+			return JsToolkit.readerToLines(JsToolkit.fileToReader(js_file));
+		}
+		
+		long getRevalidationPeriod() {
+			return revalidation_period;
+		}
+	}
+	
+	private class EvaluatedUrlScript extends EvaluatedScript {
+		private final URL js_url;
+		private HashCode content_hash;
+		private ArrayList<String> content_lines;
+		
+		EvaluatedUrlScript(URL js_url) {
+			super(js_url.toString());
+			this.js_url = js_url;
+		}
+		
+		/**
+		 * The only way to know if an URL content has changed is to download it. The downloaded lines are kept with their hash,
+		 * for eval them again after an eval error.
+		 */
+		boolean checkSourceChange() throws IOException {
+			ArrayList<String> lines = JsToolkit.readerToLines(JsToolkit.inputStreamToReader(js_url.openStream()));
+			HashCode actual_hash = Hashing.sha256().hashString(String.join("\n", lines), StandardCharsets.UTF_8);
+			if (actual_hash.equals(content_hash)) {
+				return false;
+			}
+			content_hash = actual_hash;
+			content_lines = lines;
+			return true;
+		}
+		
+		ArrayList<String> readSource() {
+			return content_lines;
+		}
+		
+		long getRevalidationPeriod() {
+			return url_revalidation_period;
+		}
+	}
+	
+}
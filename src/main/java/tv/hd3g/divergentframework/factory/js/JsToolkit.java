@@ -27,6 +27,7 @@ import java.io.PrintStream;
 import java.io.Reader;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -47,6 +48,8 @@ import org.apache.log4j.Logger;
 import jdk.nashorn.api.scripting.NashornException;
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import tv.hd3g.divergentframework.factory.jfr.JsEvalEvent;
+import tv.hd3g.divergentframework.factory.jfr.JsInvocationEvent;
 
 /**
  * TODO switch to graalvm
@@ -82,11 +85,11 @@ public class JsToolkit {
 		return this;
 	}
 	
-	private static Reader fileToReader(File js_file) throws FileNotFoundException {
+	static Reader fileToReader(File js_file) throws FileNotFoundException {
 		return new FileReader(js_file);
 	}
 	
-	private static ArrayList<String> readerToLines(Reader js_source) throws IOException {
+	static ArrayList<String> readerToLines(Reader js_source) throws IOException {
 		ArrayList<String> file_lines = new ArrayList<>();
 		try (BufferedReader br = new BufferedReader(js_source)) {
 			String line;
@@ -98,7 +101,7 @@ public class JsToolkit {
 		return file_lines;
 	}
 	
-	private static Reader inputStreamToReader(InputStream js_source) throws FileNotFoundException {
+	static Reader inputStreamToReader(InputStream js_source) throws FileNotFoundException {
 		return new InputStreamReader(js_source);
 	}
 	
@@ -134,15 +137,26 @@ public class JsToolkit {
 		if (source_name == null) {
 			throw new NullPointerException("\"source_name\" can't to be null");
 		}
+		String script = file_lines.stream().collect(Collectors.joining("\r\n"));
+		JsEvalEvent event = new JsEvalEvent();
+		event.begin();
 		try {
-			return engine.eval(file_lines.stream().collect(Collectors.joining("\r\n")));
+			return engine.eval(script);
 		} catch (ScriptException e) {
 			showError(file_lines, source_name, e);
 			throw new RuntimeException("Trouble with JS source \"" + source_name + "\", line " + e.getLineNumber() + ", col " + e.getColumnNumber() + ": " + e.getMessage(), e);
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.source_name = source_name;
+				event.size = script.getBytes(StandardCharsets.UTF_8).length;
+				event.line_count = file_lines.size();
+				event.commit();
+			}
 		}
 	}
 	
-	private void showError(List<String> file_lines, String source_name, ScriptException e) {
+	void showError(List<String> file_lines, String source_name, ScriptException e) {
 		showError(file_lines, source_name, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
 	}
 	
@@ -193,11 +207,22 @@ public class JsToolkit {
 		ClassLoader cl = Thread.currentThread().getContextClassLoader();
 		
 		Object proxy = Proxy.newProxyInstance(cl, new Class[] { interface_to_instanciate }, (Object _proxy_do_not_use, Method method, Object[] arguments) -> {
+			JsInvocationEvent event = new JsInvocationEvent();
+			event.begin();
 			try {
 				return dynamic_behavior.dynamicInvoke(method, arguments);
 			} catch (NashornException e) {
 				showError(file_lines, source_name, e);
 				throw e;
+			} finally {
+				event.end();
+				if (event.shouldCommit()) {
+					event.interface_name = interface_to_instanciate.getName();
+					event.method_name = method.getName();
+					event.source_name = source_name;
+					event.argument_count = arguments == null ? 0 : arguments.length;
+					event.commit();
+				}
 			}
 		});
 		
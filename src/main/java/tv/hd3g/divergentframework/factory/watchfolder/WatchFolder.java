@@ -45,6 +45,8 @@ import tv.hd3g.divergentframework.factory.configuration.validation.FileIsDirecto
 import tv.hd3g.divergentframework.factory.configuration.validation.ForbiddenConfiguratorValidator;
 import tv.hd3g.divergentframework.factory.configuration.validation.NotEmptyNotZeroValidator;
 import tv.hd3g.divergentframework.factory.configuration.validation.NotNullValidator;
+import tv.hd3g.divergentframework.factory.jfr.WatchFolderDispatchEvent;
+import tv.hd3g.divergentframework.factory.jfr.WatchFolderScanEvent;
 
 public class WatchFolder {
 	private static Logger log = Logger.getLogger(WatchFolder.class);
@@ -164,13 +166,24 @@ public class WatchFolder {
 	}
 	
 	private void pushNewDirectory(File new_dir, boolean first_scan) {
-		if (watched_directories.containsKey(new_dir) == false) {
-			log.debug("New directory " + computeRelativeName(new_dir) + " in " + toString());
+		if (closed) {
+			return;
+		}
+		/**
+		 * The first scan push the sub directories, so it can't run in a computeIfAbsent (recursive update).
+		 */
+		WatchedDirectory watched_directory = new WatchedDirectory(new_dir, first_scan);
+		if (watched_directories.putIfAbsent(new_dir, watched_directory) != null) {
+			return;
 		}
+		log.debug("New directory " + computeRelativeName(new_dir) + " in " + toString());
 		
-		watched_directories.computeIfAbsent(new_dir, dir -> {
-			return new WatchedDirectory(dir, first_scan);
-		});
+		try {
+			watched_directory.firstUpdate();
+		} catch (RuntimeException e) {
+			watched_directories.remove(new_dir, watched_directory);
+			throw e;
+		}
 	}
 	
 	private void cancelOldDirectory(File old_dir) {
@@ -203,8 +216,11 @@ public class WatchFolder {
 			this.directory = directory;
 			this.items = new ArrayList<>();
 			this.first_scan = first_scan;
+		}
+		
+		private void firstUpdate() {
 			update();
-			this.first_scan = false;
+			first_scan = false;
 		}
 		
 		CompletableFuture<Void> cancelNextScan() {
@@ -231,6 +247,8 @@ public class WatchFolder {
 			
 			synchronized (directory) {
 				log.trace("Update directory " + computeRelativeName(directory) + " in " + internalToString());
+				WatchFolderScanEvent event = new WatchFolderScanEvent();
+				event.begin();
 				
 				Set<File> actual_items_in_dir = Arrays.asList(directory.listFiles()).stream().filter(f -> {
 					if (f.isDirectory() == false) {
@@ -321,6 +339,21 @@ public class WatchFolder {
 					return new WatchedFile(f);
 				}).collect(Collectors.toList()));
 				
+				event.end();
+				if (event.shouldCommit()) {
+					event.path = directory.getPath();
+					event.item_count = actual_items_in_dir.size();
+					event.added_count = added_item_list.size();
+					event.deleted_count = deleted_item_list.size();
+					event.commit();
+				}
+				
+				if (closed) {
+					/**
+					 * close() can't cancel a running scan: don't let it schedule the next one.
+					 */
+					return;
+				}
 				pending_next_update = sch_service.schedule(() -> {
 					try {
 						update();
@@ -449,10 +482,21 @@ public class WatchFolder {
 				if (closed) {
 					return;
 				}
+				WatchFolderDispatchEvent event = new WatchFolderDispatchEvent();
+				event.begin();
 				try {
 					c.onEvent(dir, validated_event_file, kind, this);
 				} catch (Exception e) {
 					log.error("Can't propagate event for " + validated_event_file + "(" + c + ")", e);
+				} finally {
+					event.end();
+					if (event.shouldCommit()) {
+						event.path = validated_event_file.getPath();
+						event.kind = kind.name();
+						event.size = validated_event_file.length();
+						event.callback = c.getClass().getName();
+						event.commit();
+					}
 				}
 			});
 		});
@@ -595,11 +639,15 @@ public class WatchFolder {
 	 * Blocking
 	 * Will no touch to internal sch_service and executor, just clean active an current task for this watchfolder.
 	 */
-	public synchronized void close() {
-		log.info("Ask to stop watchfolder " + toString());
-		
-		closed = true;
+	public void close() {
+		synchronized (this) {
+			log.info("Ask to stop watchfolder " + toString());
+			closed = true;
+		}
 		
+		/**
+		 * Without this lock: a running scan holds its directory lock, and can call this synchronized getters.
+		 */
 		List<CompletableFuture<Void>> cancel_tasks = watched_directories.values().stream().map(watched_dir -> {
 			return watched_dir.cancelNextScan();
 		}).collect(Collectors.toList());
@@ -619,11 +667,13 @@ public class WatchFolder {
 			throw new RuntimeException("Can't cancel some tasks", e);
 		}
 		
-		callbacks.forEach(c -> {
-			c.onStop(observed_directory, this);
-		});
-		callbacks.clear();
-		
-		watched_directories.clear();
+		synchronized (this) {
+			callbacks.forEach(c -> {
+				c.onStop(observed_directory, this);
+			});
+			callbacks.clear();
+			
+			watched_directories.clear();
+		}
 	}
 }
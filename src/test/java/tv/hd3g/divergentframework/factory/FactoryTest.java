@@ -18,16 +18,52 @@ package tv.hd3g.divergentframework.factory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.script.ScriptException;
+import javax.tools.ToolProvider;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.SystemUtils;
 
 import com.google.gson.JsonObject;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import junit.framework.TestCase;
 import tv.hd3g.divergentframework.factory.configuration.demo.SingleCar;
+import tv.hd3g.divergentframework.factory.index.ComponentIndex;
+import tv.hd3g.divergentframework.factory.jfr.FactoryCreateEvent;
+import tv.hd3g.divergentframework.factory.jfr.JsEvalEvent;
+import tv.hd3g.divergentframework.factory.jfr.JsInvocationEvent;
 
 public class FactoryTest extends TestCase {
 	
@@ -47,6 +83,24 @@ public class FactoryTest extends TestCase {
 		assertNull(sc.getPoints_by_names());
 	}
 	
+	public void testCreateInstances() throws ReflectiveOperationException {
+		Factory f = new Factory();
+		
+		SingleCar sc1 = f.create(SingleCar.class);
+		SingleCar sc2 = f.create(SingleCar.class);
+		assertNotNull(sc1);
+		assertNotNull(sc2);
+		assertNotSame(sc1, sc2);
+		
+		for (int pos = 0; pos < 2; pos++) {
+			try {
+				f.create(Integer.class);
+				fail();
+			} catch (NoSuchMethodException e) {
+			}
+		}
+	}
+	
 	public void testInterfaceImpl() throws ReflectiveOperationException, IOException, ScriptException {
 		Factory f = new Factory();
 		f.getJsToolkit().setVerboseErrors(System.err);
@@ -68,6 +122,127 @@ public class FactoryTest extends TestCase {
 		
 	}
 	
+	public void testClassByName() throws Exception {
+		Factory f = new Factory();
+		
+		assertEquals(Single.class, f.getClassByName(Single.class.getName()));
+		assertSame(f.getClassByName(Single.class.getName()), f.getClassByName(Single.class.getName()));
+		assertNull(f.getClassByName("tv.hd3g.NotExists"));
+		assertFalse(f.isClassExists("tv.hd3g.NotExists"));
+		assertNull(f.getClassByName(null));
+		
+		/**
+		 * A ClassLoader with a late "added" class
+		 */
+		AtomicBoolean plugin_loaded = new AtomicBoolean(false);
+		ClassLoader plugin_loader = new ClassLoader(null) {
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				if (plugin_loaded.get() && name.equals(Single.class.getName())) {
+					return Single.class;
+				}
+				throw new ClassNotFoundException(name);
+			}
+		};
+		
+		assertNull(f.getClassByName(Single.class.getName(), plugin_loader));
+		plugin_loaded.set(true);
+		assertNull(f.getClassByName(Single.class.getName(), plugin_loader));
+		
+		f.forgetAbsentClassNames();
+		assertEquals(Single.class, f.getClassByName(Single.class.getName(), plugin_loader));
+		
+		ClassLoader plugin_loader2 = new ClassLoader(null) {
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				if (plugin_loaded.get() && name.equals(Single.class.getName())) {
+					return Single.class;
+				}
+				throw new ClassNotFoundException(name);
+			}
+		};
+		f.setAbsentClassNamesPolicy(0, TimeUnit.SECONDS, 0);
+		plugin_loaded.set(false);
+		assertNull(f.getClassByName(Single.class.getName(), plugin_loader2));
+		plugin_loaded.set(true);
+		assertEquals(Single.class, f.getClassByName(Single.class.getName(), plugin_loader2));
+		
+		/**
+		 * Like a missing dependency jar, added later
+		 */
+		AtomicBoolean dependency_loaded = new AtomicBoolean(false);
+		ClassLoader plugin_loader3 = new ClassLoader(null) {
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				if (dependency_loaded.get() == false) {
+					throw new NoClassDefFoundError("tv/hd3g/MissingDependency");
+				} else if (name.equals(Single.class.getName())) {
+					return Single.class;
+				}
+				throw new ClassNotFoundException(name);
+			}
+		};
+		try {
+			f.getClassByName(Single.class.getName(), plugin_loader3);
+			fail();
+		} catch (NoClassDefFoundError e) {
+		}
+		dependency_loaded.set(true);
+		assertEquals(Single.class, f.getClassByName(Single.class.getName(), plugin_loader3));
+	}
+	
+	public void testBindMapChanges() throws ReflectiveOperationException, IOException {
+		Factory f = new Factory();
+		
+		try {
+			f.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		
+		f.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		assertEquals("java", f.create(SimpleInterface.class).whoami());
+		
+		f.getBindMap().setProperty(SimpleInterface.class.getName(), "tv.hd3g.NotExists");
+		try {
+			f.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		
+		f.getBindMap().clear();
+		try {
+			f.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		
+		f.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		assertEquals("java", f.create(SimpleInterface.class).whoami());
+		f.getBindMap().keySet().remove(SimpleInterface.class.getName());
+		try {
+			f.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		
+		/**
+		 * Bindings are resolved on demand, and the unresolved ones are resolved again.
+		 */
+		f.getBindMap().setProperty(Runnable.class.getName(), SimpleInterfaceStaticInit.class.getName());
+		File js_file = File.createTempFile("simple-interface", ".js");
+		js_file.delete();
+		f.getBindMap().setProperty(SimpleInterface.class.getName(), js_file.getPath());
+		try {
+			f.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		assertFalse(static_init_done.get());
+		
+		FileUtils.copyURLToFile(FactoryTest.class.getResource("SimpleInterfaceImpl.js"), js_file);
+		js_file.deleteOnExit();
+		assertEquals("javascript", f.create(SimpleInterface.class).whoami());
+		f.getBindMap().clear();
+	}
+	
 	// T O D O test callbacks (first, before next, after next)
 	
 	public void testSingleInstance() throws Exception {
@@ -129,4 +304,626 @@ public class FactoryTest extends TestCase {
 		assertEquals(1f, sc.getSize());
 	}
 	
+	public void testComponentIndex() {
+		ComponentIndex index = ComponentIndex.get(SingleCar.class);
+		assertTrue(index.isIndexed(SingleCar.class));
+		assertEquals(Boolean.TRUE, index.isSingleInstance(Single.class));
+		assertEquals(Boolean.FALSE, index.isSingleInstance(SingleCar.class));
+		assertTrue(index.getOnAfterInjectConfigurationMethodNames(SingleCar.class).contains("callbackOnAfterInjectConfiguration"));
+		assertTrue(index.getValidatedFieldNames(SingleCar.class).contains("color"));
+		assertEquals(String.class.getName(), index.getTargetGenericClassTypeNames(SingleCar.class).get("passager_names"));
+		assertTrue(index.getSingleInstanceClassNames().contains(Single.class.getName()));
+		
+		assertFalse(index.isIndexed(String.class));
+		assertNull(index.getOnAfterInjectConfigurationMethodNames(String.class));
+		
+		/**
+		 * Like Class.getMethods, an override without the annotation is not a callback.
+		 */
+		assertEquals(Arrays.asList("onConfigured"), index.getOnAfterInjectConfigurationMethodNames(InjectedGarage.AnnotatedCallback.class));
+		assertTrue(index.getOnAfterInjectConfigurationMethodNames(InjectedGarage.OverriddenCallback.class).isEmpty());
+	}
+	
+	public void testAllClassesFromPackage() throws Exception {
+		File cache_file = File.createTempFile(FactoryTest.class.getSimpleName(), ".properties");
+		cache_file.delete();
+		
+		Factory factory = new Factory();
+		factory.setClasspathIndexCacheFile(cache_file);
+		List<Class<?>> classes = factory.getAllClassesFromPackage(SingleCar.class.getPackageName());
+		assertTrue(classes.contains(SingleCar.class));
+		assertFalse(classes.contains(SingleCar.Wheel.class));
+		assertTrue(cache_file.exists());
+		
+		/**
+		 * Loaded from the cache file, without rescan.
+		 */
+		Factory factory2 = new Factory().setClasspathIndexCacheFile(cache_file).setClasspathIndexRevalidationPeriod(1, TimeUnit.HOURS);
+		assertEquals(classes, factory2.getAllClassesFromPackage(SingleCar.class.getPackageName()));
+		assertTrue(factory2.getAllClassesFromPackage("nope.nothing").isEmpty());
+		
+		cache_file.delete();
+	}
+	
+	private static File createJar(File jar_file, String class_path, String class_file) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (class_path != null) {
+			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, class_path);
+		}
+		try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jar_file.toPath()), manifest)) {
+			jar.putNextEntry(new JarEntry(class_file));
+			jar.closeEntry();
+		}
+		return jar_file;
+	}
+	
+	public void testClasspathIndexManifestAndPrune() throws Exception {
+		File dir = Files.createTempDirectory(FactoryTest.class.getSimpleName()).toFile().getCanonicalFile();
+		File lib_jar = createJar(new File(dir, "lib.jar"), null, "libpkg/LibClass.class");
+		File app_jar = createJar(new File(dir, "app.jar"), "lib.jar missing.jar", "apppkg/App.class");
+		File cache_file = new File(dir, "index.properties");
+		
+		ArrayList<File> classpath = new ArrayList<>(Arrays.asList(app_jar));
+		ClasspathIndex index = new ClasspathIndex(() -> classpath);
+		index.setRevalidationPeriod(0, TimeUnit.MILLISECONDS);
+		index.setCacheFile(cache_file);
+		
+		/**
+		 * Like java -jar app.jar
+		 */
+		assertEquals(Arrays.asList("apppkg.App"), index.getTopLevelClassNames("apppkg"));
+		assertEquals(Arrays.asList("libpkg.LibClass"), index.getTopLevelClassNames("libpkg"));
+		
+		ClasspathIndex loaded_index = new ClasspathIndex(() -> classpath);
+		loaded_index.setCacheFile(cache_file);
+		assertEquals(Arrays.asList("libpkg.LibClass"), loaded_index.getTopLevelClassNames("libpkg"));
+		
+		classpath.clear();
+		assertTrue(index.getTopLevelClassNames("libpkg").isEmpty());
+		Properties content = new Properties();
+		try (InputStream in = Files.newInputStream(cache_file.toPath())) {
+			content.load(in);
+		}
+		assertFalse(content.containsKey(lib_jar.getPath()));
+		assertFalse(content.containsKey(app_jar.getPath()));
+		
+		FileUtils.forceDelete(dir);
+	}
+	
+	static final AtomicBoolean static_init_done = new AtomicBoolean(false);
+	
+	public void testFindClassesFromPackage() throws Exception {
+		Factory factory = new Factory();
+		String package_name = FactoryTest.class.getPackageName();
+		
+		List<Class<?>> single_instances = factory.findClassesFromPackageAnnotatedWith(package_name, SingleInstance.class);
+		assertTrue(single_instances.contains(Single.class));
+		assertFalse(single_instances.contains(FactoryTest.class));
+		
+		List<Class<? extends SimpleInterface>> impls = factory.findClassesFromPackageSubTypeOf(package_name, SimpleInterface.class);
+		assertEquals(2, impls.size());
+		assertTrue(impls.contains(SimpleInterfaceImpl.class));
+		assertFalse(impls.contains(SimpleInterface.class));
+		assertFalse(static_init_done.get());
+		
+		List<Class<?>> interfaces = factory.findClassesFromPackage(package_name, info -> info.isInterface() && info.isAnnotation() == false);
+		assertTrue(interfaces.contains(SimpleInterface.class));
+		assertTrue(interfaces.contains(GsonDeSerializer.class));
+		assertFalse(interfaces.contains(SingleInstance.class));
+	}
+	
+	public void testConstructorInjection() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		
+		InjectedGarage garage = factory.create(InjectedGarage.class);
+		assertEquals("java", garage.simple.whoami());
+		assertEquals(factory.create(Single.class), garage.single);
+		assertNotNull(garage.car);
+		
+		InjectedGarage garage2 = factory.create(InjectedGarage.class);
+		assertNotSame(garage, garage2);
+		assertNotSame(garage.car, garage2.car);
+		assertSame(garage.single, garage2.single);
+		
+		/**
+		 * Binding change: the plan is resolved again
+		 */
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), FactoryTest.class.getResource("SimpleInterfaceImpl.js").toString());
+		assertEquals("javascript", factory.create(InjectedGarage.class).simple.whoami());
+		
+		factory.getBindMap().clear();
+		try {
+			factory.create(InjectedGarage.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+		
+		try {
+			factory.create(InjectedGarage.Cycle.class);
+			fail();
+		} catch (ReflectiveOperationException e) {
+			assertTrue(e.getMessage().startsWith("Dependency cycle"));
+		}
+	}
+	
+	public void testNestedSingleInstances() throws Exception {
+		Factory factory = new Factory();
+		InjectedGarage.factory.set(factory);
+		
+		List<InjectedGarage.SingleNested> all_nested = IntStream.range(0, 8).parallel().mapToObj(i -> {
+			try {
+				return factory.create(InjectedGarage.SingleNested.class);
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException(e);
+			}
+		}).collect(Collectors.toList());
+		
+		InjectedGarage.SingleNested nested = all_nested.get(0);
+		all_nested.forEach(n -> assertSame(nested, n));
+		assertSame(factory.create(Single.class), nested.single);
+		assertSame(factory.create(InjectedGarage.SingleSlow.class), nested.slow);
+		
+		try {
+			factory.create(InjectedGarage.SingleSelfCycle.class);
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof ReflectiveOperationException);
+			assertTrue(e.getCause().getMessage().startsWith("SingleInstance cycle"));
+		}
+	}
+	
+	public void testLazySingleInstance() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(InjectedGarage.LazyService.class.getName(), InjectedGarage.LazyServiceImpl.class.getName());
+		
+		int created = InjectedGarage.LazyServiceImpl.created.get();
+		InjectedGarage.LazyService service = factory.create(InjectedGarage.LazyService.class);
+		assertSame(service, factory.create(InjectedGarage.LazyService.class));
+		assertTrue(new HashSet<>(Arrays.asList(service)).contains(service));
+		assertTrue(service.toString().contains(InjectedGarage.LazyService.class.getName()));
+		assertEquals(created, InjectedGarage.LazyServiceImpl.created.get());
+		
+		assertEquals(42, service.getValue());
+		assertEquals(42, service.getValue());
+		assertEquals(created + 1, InjectedGarage.LazyServiceImpl.created.get());
+		assertTrue(service.equals(service));
+	}
+	
+	public void testWarmUpSingleInstances() throws Exception {
+		Factory factory = new Factory();
+		factory.warmUpSingleInstances(Arrays.asList(InjectedGarage.SingleWithDeps.class, SingleCar.class));
+		
+		InjectedGarage.SingleWithDeps with_deps = factory.create(InjectedGarage.SingleWithDeps.class);
+		assertSame(factory.create(Single.class), with_deps.single);
+		assertSame(factory.create(InjectedGarage.SingleSlow.class), with_deps.slow);
+		
+		factory.warmUpSingleInstancesFromPackages(FactoryTest.class.getPackageName());
+		
+		InjectedGarage.factory.set(factory);
+		try {
+			factory.warmUpSingleInstances(Arrays.asList(InjectedGarage.SingleSelfCycle.class));
+			fail();
+		} catch (ReflectiveOperationException e) {
+		}
+	}
+	
+	public void testThreadInstances() throws Exception {
+		Factory factory = new Factory();
+		InjectedGarage.PerThread per_thread = factory.create(InjectedGarage.PerThread.class);
+		assertSame(per_thread, factory.create(InjectedGarage.PerThread.class));
+		
+		AtomicReference<Object> other_thread = new AtomicReference<>();
+		Thread t = new Thread(() -> {
+			try {
+				other_thread.set(factory.create(InjectedGarage.PerThread.class));
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		t.start();
+		t.join();
+		assertNotNull(other_thread.get());
+		assertNotSame(per_thread, other_thread.get());
+		
+		factory.removeThreadInstances();
+		assertNotSame(per_thread, factory.create(InjectedGarage.PerThread.class));
+		
+		factory.declareThreadInstance(SingleCar.class);
+		assertSame(factory.create(SingleCar.class), factory.create(SingleCar.class));
+	}
+	
+	public void testPooledInstances() throws Exception {
+		Factory factory = new Factory();
+		InstancePool<InjectedGarage.Pooled> pool = factory.getPool(InjectedGarage.Pooled.class);
+		assertNull(factory.getPool(SingleCar.class));
+		
+		InjectedGarage.Pooled p1 = factory.create(InjectedGarage.Pooled.class);
+		InjectedGarage.Pooled p2 = factory.create(InjectedGarage.Pooled.class);
+		assertNotSame(p1, p2);
+		assertEquals(2, pool.getSize());
+		assertEquals(2, pool.getMissCount());
+		
+		try {
+			factory.create(InjectedGarage.Pooled.class);
+			fail();
+		} catch (ReflectiveOperationException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertEquals(1, pool.getWaitCount());
+		
+		assertTrue(factory.giveBack(p1));
+		assertFalse(factory.giveBack(p1));
+		assertSame(p1, factory.create(InjectedGarage.Pooled.class));
+		assertEquals(1, pool.getHitCount());
+		assertEquals(1d / 3d, pool.getHitRate(), 0.001d);
+		
+		assertTrue(factory.giveBack(p1));
+		assertTrue(factory.giveBack(p2));
+		Thread.sleep(150);
+		pool.evictIdle();
+		assertEquals(0, pool.getSize());
+		assertEquals(2, pool.getEvictedCount());
+		
+		assertTrue(factory.giveBack(factory.create(InjectedGarage.Pooled.class)));
+		assertEquals(1, pool.getSize());
+		pool.clear();
+		assertEquals(0, pool.getSize());
+		assertEquals(3, pool.getEvictedCount());
+		
+		factory.declarePooledInstance(SingleCar.class, 1, 1, 1, TimeUnit.SECONDS);
+		SingleCar car = factory.create(SingleCar.class);
+		assertTrue(factory.giveBack(car));
+		assertSame(car, factory.create(SingleCar.class));
+	}
+	
+	public void testChildFactory() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		Single single = factory.create(Single.class);
+		
+		Factory child = factory.createChild();
+		assertSame(factory, child.getParent());
+		assertEquals("java", child.create(SimpleInterface.class).whoami());
+		assertSame(single, child.create(Single.class));
+		
+		/**
+		 * Override only in the child
+		 */
+		child.getBindMap().setProperty(SimpleInterface.class.getName(), FactoryTest.class.getResource("SimpleInterfaceImpl.js").toString());
+		assertEquals("javascript", child.create(SimpleInterface.class).whoami());
+		assertEquals("java", factory.create(SimpleInterface.class).whoami());
+		
+		/**
+		 * Created by the child, not visible by the parent
+		 */
+		InjectedGarage.SingleSlow slow = child.create(InjectedGarage.SingleSlow.class);
+		assertSame(slow, child.create(InjectedGarage.SingleSlow.class));
+		assertNotSame(slow, factory.create(InjectedGarage.SingleSlow.class));
+		
+		/**
+		 * Parent changes are visible by the child
+		 */
+		child.getBindMap().clear();
+		factory.getBindMap().clear();
+		try {
+			child.create(SimpleInterface.class);
+			fail();
+		} catch (ClassNotFoundException e) {
+		}
+	}
+	
+	public void testCreateAsyncAndMany() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		
+		assertEquals("java", factory.createAsync(SimpleInterface.class).get().whoami());
+		
+		try {
+			factory.createAsync(InjectedGarage.Cycle.class, Runnable::run).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ReflectiveOperationException);
+		}
+		
+		List<InjectedGarage> garages = factory.createMany(InjectedGarage.class, 3);
+		assertEquals(3, garages.size());
+		assertEquals(3, garages.stream().distinct().count());
+		assertSame(garages.get(0).single, garages.get(2).single);
+		assertNotSame(garages.get(0).car, garages.get(2).car);
+		
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), FactoryTest.class.getResource("SimpleInterfaceImpl.js").toString());
+		List<SimpleInterface> from_js = factory.createMany(SimpleInterface.class, 2);
+		assertEquals("javascript", from_js.get(1).whoami());
+		
+		List<Single> singles = factory.createMany(Single.class, 2);
+		assertSame(singles.get(0), singles.get(1));
+		assertTrue(factory.createMany(Single.class, 0).isEmpty());
+	}
+	
+	public void testStatistics() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		FactoryMXBean statistics = factory.getStatistics();
+		
+		factory.create(InjectedGarage.class);
+		factory.createMany(InjectedGarage.class, 2);
+		assertNull(factory.getClassByName("tv.hd3g.NotExists"));
+		assertNull(factory.getClassByName("tv.hd3g.NotExists"));
+		
+		CreationStatistics garages = statistics.getCreationStatistics().stream().filter(c -> {
+			return c.getClassName().equals(InjectedGarage.class.getName());
+		}).findFirst().get();
+		assertEquals(3, garages.getCount());
+		assertEquals(3, LongStream.of(garages.getLatencyHistogram()).sum());
+		assertTrue(statistics.getCreatedCount() >= 3);
+		assertTrue(statistics.getCreationPlanHitCount() >= 1);
+		assertTrue(statistics.getCreationPlanMissCount() >= 1);
+		assertEquals(1, statistics.getAbsentClassNameHitCount());
+		assertEquals(1, statistics.getAbsentClassNameLoadCount());
+		assertEquals(1, statistics.getSingleInstanceCount());
+		
+		ObjectName name = factory.registerMXBean();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(1, server.getAttribute(name, "SingleInstanceCount"));
+			assertNotNull(server.getAttribute(name, "CreationStatistics"));
+			server.invoke(name, "resetStatistics", null, null);
+			assertEquals(0l, server.getAttribute(name, "CreatedCount"));
+			assertEquals(0l, server.getAttribute(name, "AbsentClassNameHitCount"));
+		} finally {
+			factory.unregisterMXBean();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+	
+	public void testStatisticsDisabled() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), SimpleInterfaceImpl.class.getName());
+		FactoryMXBean statistics = factory.getStatistics();
+		assertTrue(statistics.isCreationStatisticsEnabled());
+		
+		statistics.setCreationStatisticsEnabled(false);
+		factory.create(InjectedGarage.class);
+		factory.createMany(InjectedGarage.class, 2);
+		assertEquals(0, statistics.getCreatedCount());
+		assertTrue(statistics.getCreationStatistics().isEmpty());
+		
+		Factory child = factory.createChild();
+		assertFalse(child.getStatistics().isCreationStatisticsEnabled());
+		child.create(InjectedGarage.class);
+		assertEquals(0, child.getStatistics().getCreatedCount());
+		
+		ObjectName name = factory.registerMXBean();
+		try {
+			ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("CreationStatisticsEnabled", true));
+		} finally {
+			factory.unregisterMXBean();
+		}
+		assertTrue(statistics.isCreationStatisticsEnabled());
+		
+		factory.createMany(InjectedGarage.class, 3);
+		CreationStatistics garages = statistics.getCreationStatistics().stream().filter(c -> {
+			return c.getClassName().equals(InjectedGarage.class.getName());
+		}).findFirst().get();
+		assertEquals(3, garages.getCount());
+		assertEquals(3, LongStream.of(garages.getLatencyHistogram()).sum());
+		assertTrue(garages.getMaxTime() <= garages.getTotalTime());
+	}
+	
+	public void testFlightRecorderEvents() throws Exception {
+		Factory factory = new Factory();
+		factory.getBindMap().setProperty(SimpleInterface.class.getName(), FactoryTest.class.getResource("SimpleInterfaceImpl.js").toString());
+		
+		File dump = File.createTempFile("factory-test", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(FactoryCreateEvent.class);
+			recording.enable(JsEvalEvent.class);
+			recording.enable(JsInvocationEvent.class);
+			recording.start();
+			factory.create(SimpleInterface.class).whoami();
+			factory.getJsToolkit().eval(new ArrayList<>(Arrays.asList("var label = \"\u00e9t\u00e9\";", "label;")), "utf8-source");
+			recording.stop();
+			recording.dump(dump.toPath());
+		}
+		
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+		FileUtils.forceDelete(dump);
+		
+		assertTrue(events.stream().anyMatch(event -> {
+			return event.getEventType().getName().endsWith(".Create") && event.getString("class_name").equals(SimpleInterface.class.getName()) && event.getInt("instance_count") == 1;
+		}));
+		assertTrue(events.stream().anyMatch(event -> {
+			return event.getEventType().getName().endsWith(".JsEval") && event.getLong("size") > 0;
+		}));
+		assertTrue(events.stream().anyMatch(event -> {
+			return event.getEventType().getName().endsWith(".JsEval") && event.getString("source_name").equals("utf8-source") && event.getLong("size") == "var label = \"\u00e9t\u00e9\";\r\nlabel;".getBytes(StandardCharsets.UTF_8).length;
+		}));
+		assertTrue(events.stream().anyMatch(event -> {
+			return event.getEventType().getName().endsWith(".JsInvocation") && event.getString("method_name").equals("whoami");
+		}));
+	}
+	
+	public void testStartupProfiler() throws Exception {
+		Factory factory = new Factory();
+		StartupProfiler profiler = new StartupProfiler();
+		factory.setStartupProfiler(profiler);
+		assertEquals(profiler, factory.createChild().getStartupProfiler());
+		assertTrue(profiler.getEntries().isEmpty());
+		
+		assertFalse(factory.getClasspath().isEmpty());
+		assertNotNull(factory.getConfigurator());
+		factory.create(InjectedGarage.SingleSlow.class);
+		factory.create(InjectedGarage.SingleSlow.class);
+		
+		List<StartupProfiler.Phase> phases = profiler.getEntries().stream().map(StartupProfiler.Entry::getPhase).collect(Collectors.toList());
+		assertEquals(Arrays.asList(StartupProfiler.Phase.CLASSPATH, StartupProfiler.Phase.CONFIGURATOR, StartupProfiler.Phase.GSON_KIT, StartupProfiler.Phase.SINGLE_INSTANCE), phases);
+		assertTrue(profiler.getTotalTime(StartupProfiler.Phase.SINGLE_INSTANCE, TimeUnit.MILLISECONDS) >= 50);
+		assertTrue(profiler.getReport().contains(InjectedGarage.SingleSlow.class.getName()));
+		
+		profiler.clear();
+		assertTrue(profiler.getEntries().isEmpty());
+	}
+	
+	public void testClassListRecorder() throws Exception {
+		Factory f = new Factory();
+		ClassListRecorder recorder = new ClassListRecorder();
+		f.setClassListRecorder(recorder);
+		
+		JsonObject conf_root = new JsonObject();
+		JsonObject conf_tree = new JsonObject();
+		conf_tree.addProperty("color", "red");
+		conf_root.add(SingleCar.class.getName(), conf_tree);
+		File temp_conf_file = File.createTempFile(FactoryTest.class.getSimpleName().toLowerCase(), ".json");
+		FileUtils.write(temp_conf_file, f.createGsonKit().getGsonPretty().toJson(conf_root), "UTF-8");
+		f.getConfigurator().addConfigurationFilesToInternalList(temp_conf_file).scanImportedFiles();
+		
+		assertEquals("red", f.create(SingleCar.class).getColor());
+		assertNotNull(f.getClassByName("java.util.ArrayList"));
+		f.createChild().create(InjectedGarage.SingleSlow.class);
+		FileUtils.forceDelete(temp_conf_file);
+		
+		List<String> names = recorder.getClassNames();
+		assertTrue(names.contains(SingleCar.class.getName().replace('.', '/')));
+		assertTrue(names.contains(InjectedGarage.SingleSlow.class.getName().replace('.', '/')));
+		assertTrue(names.contains("java/util/ArrayList"));
+		assertTrue(names.contains("java/util/AbstractList"));
+		assertTrue(names.contains("java/lang/Object"));
+		assertEquals(names.size(), names.stream().distinct().count());
+		
+		File class_list = File.createTempFile("factory-test", ".classlist");
+		recorder.write(class_list);
+		assertEquals(names, Files.readAllLines(class_list.toPath()));
+		FileUtils.forceDelete(class_list);
+	}
+	
+	public void testClassListRecorderDumpCommand() throws Exception {
+		File java_home = Files.createTempDirectory("factory-jdk").toFile();
+		File class_list = File.createTempFile("factory-test", ".classlist");
+		Files.write(class_list.toPath(), Arrays.asList("java/util/ArrayList", "tv/hd3g/divergentframework/factory/Factory"));
+		assertEquals(class_list, ClassListRecorder.mergeDefaultClassList(java_home, class_list));
+		
+		File lib = new File(java_home, "lib");
+		FileUtils.forceMkdir(lib);
+		Files.write(new File(lib, "classlist").toPath(), Arrays.asList("java/lang/Object", "java/util/ArrayList", ""));
+		File merged = ClassListRecorder.mergeDefaultClassList(java_home, class_list);
+		assertFalse(class_list.equals(merged));
+		assertEquals(Arrays.asList("java/lang/Object", "java/util/ArrayList", "tv/hd3g/divergentframework/factory/Factory"), Files.readAllLines(merged.toPath()));
+		
+		File archive = new File(java_home, "app.jsa");
+		File jar = new File(java_home, "app.jar");
+		List<String> expected = Arrays.asList(new File(new File(java_home, "bin"), "java").getPath(), "-Xshare:dump", "-XX:SharedClassListFile=" + merged.getPath(), "-XX:SharedArchiveFile=" + archive.getPath());
+		assertEquals(expected, ClassListRecorder.getDumpCommand(java_home, merged, archive, new ArrayList<>()));
+		
+		ArrayList<String> expected_cp = new ArrayList<>(expected);
+		expected_cp.add("-cp");
+		expected_cp.add(jar.getPath() + File.pathSeparator + lib.getPath());
+		assertEquals(expected_cp, ClassListRecorder.getDumpCommand(java_home, merged, archive, Arrays.asList(jar, lib)));
+		
+		FileUtils.forceDelete(merged);
+		FileUtils.forceDelete(class_list);
+		FileUtils.forceDelete(java_home);
+	}
+	
+	/**
+	 * A fake JDK, with a "java" script that fails.
+	 */
+	public void testClassListRecorderDumpFails() throws Exception {
+		if (SystemUtils.IS_OS_WINDOWS) {
+			return;
+		}
+		File java_home = Files.createTempDirectory("factory-jdk").toFile();
+		File bin = new File(java_home, "bin");
+		FileUtils.forceMkdir(bin);
+		File java = new File(bin, "java");
+		Files.write(java.toPath(), Arrays.asList("#!/bin/sh", "echo \"Dump error $2\"", "exit 3"));
+		assertTrue(java.setExecutable(true));
+		File class_list = File.createTempFile("factory-test", ".classlist");
+		Files.write(class_list.toPath(), Arrays.asList("java/util/ArrayList"));
+		
+		try {
+			ClassListRecorder.createArchive(java_home, class_list, new File(java_home, "app.jsa"), new ArrayList<>());
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("(exit code 3)"));
+			assertTrue(e.getMessage(), e.getMessage().contains("Dump error -XX:SharedClassListFile=" + class_list.getPath()));
+		}
+		assertFalse(new File(java_home, "app.jsa").exists());
+		
+		FileUtils.forceDelete(class_list);
+		FileUtils.forceDelete(java_home);
+	}
+	
+	private static File compilePlugin() throws IOException {
+		File plugin_dir = Files.createTempDirectory("factory-plugin").toFile();
+		File source = new File(plugin_dir, "PluginWorker.java");
+		FileUtils.write(source, "package testplugin; @" + SingleInstance.class.getName() + " public class PluginWorker { }", "UTF-8");
+		int result = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-cp", System.getProperty("java.class.path"), "-d", plugin_dir.getPath(), source.getPath());
+		assertEquals(0, result);
+		return plugin_dir;
+	}
+	
+	private static WeakReference<ClassLoader> loadAndUnloadPlugin(Factory factory, File plugin_dir) throws Exception {
+		URLClassLoader plugin_class_loader = new URLClassLoader(new URL[] { plugin_dir.toURI().toURL() }, Factory.class.getClassLoader());
+		factory.registerPlugin(plugin_class_loader);
+		assertEquals(1, factory.getPlugins().size());
+		
+		Class<?> worker_class = factory.createChild().getClassByName("testplugin.PluginWorker");
+		assertNotNull(worker_class);
+		assertEquals(plugin_class_loader, worker_class.getClassLoader());
+		Object worker = factory.create(worker_class);
+		assertSame(worker, factory.create(worker_class));
+		assertEquals(1, factory.getStatistics().getSingleInstanceCount());
+		
+		factory.unloadPlugin(plugin_class_loader);
+		assertTrue(factory.getPlugins().isEmpty());
+		assertEquals(0, factory.getStatistics().getSingleInstanceCount());
+		assertNull(factory.getClassByName("testplugin.PluginWorker"));
+		plugin_class_loader.close();
+		return new WeakReference<>(plugin_class_loader);
+	}
+	
+	private static WeakReference<ClassLoader> resolveFromPlugin(ClassNameResolver resolver, File plugin_dir) throws Exception {
+		URLClassLoader plugin_class_loader = new URLClassLoader(new URL[] { plugin_dir.toURI().toURL() }, Factory.class.getClassLoader());
+		assertEquals(plugin_class_loader, resolver.resolve("testplugin.PluginWorker", plugin_class_loader).getClassLoader());
+		assertSame(String.class, resolver.resolve(String.class.getName(), plugin_class_loader));
+		assertNull(resolver.resolve("testplugin.Nope", plugin_class_loader));
+		plugin_class_loader.close();
+		return new WeakReference<>(plugin_class_loader);
+	}
+	
+	/**
+	 * Without unloadPlugin, the resolver don't keep the plugin ClassLoader.
+	 */
+	public void testClassNameResolverWeakClassLoaders() throws Exception {
+		File plugin_dir = compilePlugin();
+		ClassNameResolver resolver = new ClassNameResolver();
+		
+		WeakReference<ClassLoader> plugin_class_loader = resolveFromPlugin(resolver, plugin_dir);
+		for (int pos = 0; pos < 20 && plugin_class_loader.get() != null; pos++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertNull(plugin_class_loader.get());
+		assertSame(SingleCar.class, resolver.resolve(SingleCar.class.getName(), null));
+		FileUtils.forceDelete(plugin_dir);
+	}
+	
+	public void testPluginUnload() throws Exception {
+		File plugin_dir = compilePlugin();
+		Factory factory = new Factory();
+		ClassListRecorder recorder = new ClassListRecorder();
+		factory.setClassListRecorder(recorder);
+		assertNull(factory.getClassByName("testplugin.PluginWorker"));
+		
+		WeakReference<ClassLoader> plugin_class_loader = loadAndUnloadPlugin(factory, plugin_dir);
+		for (int pos = 0; pos < 20 && plugin_class_loader.get() != null; pos++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertNull(plugin_class_loader.get());
+		FileUtils.forceDelete(plugin_dir);
+	}
+	
 }
@@ -16,11 +16,41 @@
 */
 package tv.hd3g.divergentframework.factory;
 
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.mail.internet.InternetAddress;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import junit.framework.TestCase;
 import tv.hd3g.divergentframework.factory.GsonKit.KeyValueNullContentMergeBehavior;
@@ -180,4 +210,381 @@ public class GsonKitTest extends TestCase {
 		assertEquals("v5", removed.get(2));
 	}
 	
+	static class Adapted {
+		InetAddress inet_address;
+		InetSocketAddress inet_socket_address;
+		URL url;
+		File file;
+		Path path;
+		Date date;
+		Properties properties;
+		InternetAddress internet_address;
+		Locale locale;
+		Color color;
+		@SuppressWarnings("rawtypes")
+		Class class_name;
+		StringBuilder custom;
+	}
+	
+	public void testStreamingAdapters() throws Exception {
+		GsonKit gson_kit = new Factory().createGsonKit();
+		gson_kit.registerStreamingAdapter(StringBuilder.class, new TypeAdapter<StringBuilder>() {
+			public void write(JsonWriter out, StringBuilder value) throws IOException {
+				out.value(value.toString());
+			}
+			
+			public StringBuilder read(JsonReader in) throws IOException {
+				return new StringBuilder(in.nextString());
+			}
+		});
+		Gson gson = gson_kit.getGson();
+		
+		Adapted source = new Adapted();
+		source.inet_address = InetAddress.getByName("192.168.1.10");
+		source.inet_socket_address = new InetSocketAddress("192.168.1.10", 8080);
+		source.url = new URL("https://hd3g.tv/path?q=1");
+		source.file = new File("/tmp/file.txt");
+		source.path = Paths.get("/tmp", "path.txt");
+		source.date = new Date(1_500_000_000_000l);
+		source.properties = new Properties();
+		source.properties.setProperty("key", "value");
+		source.internet_address = new InternetAddress("user@hd3g.tv");
+		source.locale = Locale.CANADA_FRENCH;
+		source.color = new Color(10, 20, 30, 40);
+		source.class_name = GsonKit.class;
+		source.custom = new StringBuilder("custom");
+		
+		JsonObject json = gson.toJsonTree(source).getAsJsonObject();
+		assertEquals("192.168.1.10", json.get("inet_address").getAsString());
+		assertEquals(8080, json.get("inet_socket_address").getAsJsonObject().get("port").getAsInt());
+		assertEquals(1_500_000_000_000l, json.get("date").getAsLong());
+		assertEquals("fr-CA", json.get("locale").getAsString());
+		assertEquals("RGBA:0A141E28", json.get("color").getAsString());
+		assertEquals(GsonKit.class.getName(), json.get("class_name").getAsString());
+		assertEquals("custom", json.get("custom").getAsString());
+		
+		Adapted result = gson.fromJson(gson.toJson(source), Adapted.class);
+		assertEquals(source.inet_address, result.inet_address);
+		assertEquals(source.inet_socket_address, result.inet_socket_address);
+		assertEquals(source.url, result.url);
+		assertEquals(source.file, result.file);
+		assertEquals(source.path, result.path);
+		assertEquals(source.date, result.date);
+		assertEquals(source.properties, result.properties);
+		assertEquals(source.internet_address, result.internet_address);
+		assertEquals(source.locale, result.locale);
+		assertEquals(source.color, result.color);
+		assertEquals(source.class_name, result.class_name);
+		assertEquals("custom", result.custom.toString());
+		
+		/**
+		 * Nulls, and invalid values are read as null
+		 */
+		result = gson.fromJson("{\"url\":\"not an url\",\"locale\":{\"a\":[1]},\"date\":null,\"color\":\"RGBA:0A141E28\"}", Adapted.class);
+		assertNull(result.url);
+		assertNull(result.locale);
+		assertNull(result.date);
+		assertEquals(source.color, result.color);
+		assertTrue(gson.toJsonTree(new Adapted()).getAsJsonObject().get("path").isJsonNull());
+	}
+	
+	static class Point {
+		int x;
+		int y;
+	}
+	
+	static class Label {
+		String text;
+	}
+	
+	public void testDateFromDecimalNumber() {
+		Gson gson = new GsonKit().getGsonSimple();
+		assertEquals(1_500_000_000_000l, gson.fromJson("1.5E12", Date.class).getTime());
+		assertEquals(1234l, gson.fromJson("1234.5", Date.class).getTime());
+		assertEquals(1234l, gson.fromJson("\"1234\"", Date.class).getTime());
+	}
+	
+	public void testRegistryWithoutRebuild() throws Exception {
+		GsonKit gson_kit = new GsonKit();
+		Gson gson = gson_kit.getGson();
+		Point point = new Point();
+		point.x = 1;
+		point.y = 2;
+		assertEquals("{\"x\":1,\"y\":2}", gson.toJson(point));
+		
+		/**
+		 * Never used type: same Gson
+		 */
+		gson_kit.registerSerializer(Label.class, Label.class, src -> {
+			return new JsonPrimitive(src.text);
+		});
+		assertSame(gson, gson_kit.getGson());
+		Label label = new Label();
+		label.text = "label";
+		assertEquals("\"label\"", gson.toJson(label));
+		assertEquals("text", gson.fromJson("{\"text\":\"text\"}", Label.class).text);
+		
+		/**
+		 * Already used type: new Gson
+		 */
+		gson_kit.registerDeSerializer(Point.class, Point.class, src -> {
+			return new JsonPrimitive(src.x + "," + src.y);
+		}, json -> {
+			String[] values = json.getAsString().split(",");
+			Point result = new Point();
+			result.x = Integer.parseInt(values[0]);
+			result.y = Integer.parseInt(values[1]);
+			return result;
+		});
+		Gson new_gson = gson_kit.getGson();
+		assertNotSame(gson, new_gson);
+		assertEquals("\"1,2\"", new_gson.toJson(point));
+		assertEquals(2, new_gson.fromJson("\"1,2\"", Point.class).y);
+		assertEquals("\"label\"", gson_kit.getGsonPretty().toJson(label));
+		assertEquals(2, gson_kit.getAllSerializedClasses(false).filter(type -> type == Point.class || type == Label.class).count());
+		
+		/**
+		 * Deserializer only, after a serializer only: both are kept
+		 */
+		gson_kit.registerDeserializer(Label.class, Label.class, json -> {
+			Label result = new Label();
+			result.text = "D" + json.getAsString();
+			return result;
+		});
+		assertEquals("\"label\"", gson_kit.getGson().toJson(label));
+		assertEquals("Dtext", gson_kit.getGson().fromJson("\"text\"", Label.class).text);
+		assertEquals(2, gson_kit.getAllSerializedClasses(false).filter(type -> type == Point.class || type == Label.class).count());
+	}
+	
+	public void testJsonDiff() {
+		JsonArray original = GsonKit.parser.parse("[\"a\",\"b\",\"c\",\"d\"]").getAsJsonArray();
+		JsonArray patch = GsonKit.jsonDiff(original, GsonKit.parser.parse("[\"a\",\"B\",\"c\",\"d\"]"));
+		assertEquals(GsonKit.parser.parse("[{\"op\":\"replace\",\"path\":\"/1\",\"value\":\"B\"}]"), patch);
+		
+		patch = GsonKit.jsonDiff(original, GsonKit.parser.parse("[\"a\",\"x\",\"b\",\"c\"]"));
+		assertEquals(GsonKit.parser.parse("[{\"op\":\"add\",\"path\":\"/1\",\"value\":\"x\"},{\"op\":\"remove\",\"path\":\"/4\"}]"), patch);
+		assertEquals(0, GsonKit.jsonDiff(original, original.deepCopy()).size());
+		
+		JsonObject current = GsonKit.parser.parse("{\"a/b\":{\"c\":1,\"d\":[1,2]},\"old\":{\"v\":true},\"same\":[1,2,3]}").getAsJsonObject();
+		JsonObject newer = GsonKit.parser.parse("{\"a/b\":{\"c\":2,\"d\":[1,2]},\"new\":{\"v\":true},\"same\":[1,2,3]}").getAsJsonObject();
+		patch = GsonKit.jsonDiff(current, newer);
+		assertEquals(GsonKit.parser.parse("[{\"op\":\"replace\",\"path\":\"/a~1b/c\",\"value\":2},{\"op\":\"move\",\"from\":\"/old\",\"path\":\"/new\"}]"), patch);
+		assertEquals(newer, GsonKit.applyPatch(current, patch));
+		assertTrue(current.has("old"));
+		
+		JsonArray failed = GsonKit.parser.parse("[{\"op\":\"remove\",\"path\":\"/same\"},{\"op\":\"test\",\"path\":\"/old/v\",\"value\":false}]").getAsJsonArray();
+		try {
+			GsonKit.applyPatch(current, failed);
+			fail();
+		} catch (JsonParseException e) {
+			assertTrue(current.has("same"));
+		}
+	}
+	
+	private static JsonElement randomTree(Random random, int depth) {
+		int kind = depth == 0 ? 0 : random.nextInt(3);
+		if (kind == 0) {
+			return random.nextInt(10) == 0 ? JsonNull.INSTANCE : new JsonPrimitive(random.nextInt(5));
+		} else if (kind == 1) {
+			JsonArray result = new JsonArray();
+			for (int pos = random.nextInt(6); pos > 0; pos--) {
+				result.add(randomTree(random, depth - 1));
+			}
+			return result;
+		}
+		JsonObject result = new JsonObject();
+		for (int pos = random.nextInt(5); pos > 0; pos--) {
+			result.add("k" + random.nextInt(6), randomTree(random, depth - 1));
+		}
+		return result;
+	}
+	
+	/**
+	 * Like jsonMerge, numbers are compared by text, not as double values.
+	 */
+	public void testJsonDiffNumbers() {
+		JsonElement original = GsonKit.parser.parse("{\"a\":9007199254740993}");
+		JsonElement newer = GsonKit.parser.parse("{\"a\":9007199254740992}");
+		JsonArray patch = GsonKit.jsonDiff(original, newer);
+		assertEquals(GsonKit.parser.parse("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":9007199254740992}]"), patch);
+		assertEquals("9007199254740992", GsonKit.applyPatch(original, patch).getAsJsonObject().get("a").getAsString());
+		
+		assertEquals(1, GsonKit.jsonDiff(GsonKit.parser.parse("[1]"), GsonKit.parser.parse("[1.0]")).size());
+		try {
+			GsonKit.applyPatch(GsonKit.parser.parse("[1]"), GsonKit.parser.parse("[{\"op\":\"test\",\"path\":\"/0\",\"value\":1.0}]").getAsJsonArray());
+			fail();
+		} catch (JsonParseException e) {
+		}
+		
+		JsonArray same = new JsonArray();
+		same.add(1L);
+		assertEquals(0, GsonKit.jsonDiff(GsonKit.parser.parse("[1]"), same).size());
+	}
+	
+	public void testJsonDiffAndPatchRandom() {
+		Random random = new Random(0);
+		for (int pos = 0; pos < 2000; pos++) {
+			JsonElement original = randomTree(random, 3);
+			JsonElement newer = random.nextBoolean() ? randomTree(random, 3) : original.deepCopy();
+			if (newer.isJsonArray() && newer.getAsJsonArray().size() > 0) {
+				newer.getAsJsonArray().set(random.nextInt(newer.getAsJsonArray().size()), randomTree(random, 2));
+			}
+			JsonElement original_copy = original.deepCopy();
+			
+			JsonArray patch = GsonKit.jsonDiff(original, newer);
+			assertEquals(original_copy, original);
+			assertEquals(newer, GsonKit.applyPatch(original, patch));
+			assertEquals(original_copy, original);
+		}
+	}
+	
+	/**
+	 * jsonMerge before the merge engine, via jsonCompare.
+	 */
+	private static void compareMerge(JsonElement current, JsonElement newer, KeyValueNullContentMergeBehavior null_behavior) {
+		GsonKit.jsonCompare(current, newer, (relative_to, k_to_add, v) -> {
+			if (v.isJsonNull() == false || null_behavior == KeyValueNullContentMergeBehavior.KEEP) {
+				relative_to.add(k_to_add, v);
+			}
+		}, (relative_to, k_to_remove, v) -> {
+			if (null_behavior == KeyValueNullContentMergeBehavior.KEEP) {
+				relative_to.add(k_to_remove, v);
+			} else {
+				relative_to.remove(k_to_remove);
+			}
+		}, (relative_to, nothing, content_to_add) -> {
+			relative_to.add(content_to_add);
+		}, (relative_to, pos, content_to_remove) -> {
+			relative_to.remove(pos);
+		});
+	}
+	
+	public void testJsonMergeLikeCompare() {
+		Random random = new Random(0);
+		for (int pos = 0; pos < 2000; pos++) {
+			JsonObject current = new JsonObject();
+			current.add("root", randomTree(random, 4));
+			current.add("other", randomTree(random, 3));
+			JsonObject newer = current.deepCopy();
+			if (random.nextBoolean()) {
+				newer.add("other", randomTree(random, 3));
+			} else {
+				newer.add("root", randomTree(random, 4));
+			}
+			JsonObject newer_copy = newer.deepCopy();
+			KeyValueNullContentMergeBehavior null_behavior = random.nextBoolean() ? KeyValueNullContentMergeBehavior.KEEP : KeyValueNullContentMergeBehavior.REMOVE;
+			
+			JsonObject expected = current.deepCopy();
+			compareMerge(expected, newer, null_behavior);
+			GsonKit.jsonMerge(current, newer, null_behavior);
+			assertEquals(expected.toString(), current.toString());
+			assertEquals(newer_copy, newer);
+		}
+		
+		JsonObject with_null = new JsonObject();
+		with_null.add("sub", new JsonObject());
+		with_null.get("sub").getAsJsonObject().add("n", JsonNull.INSTANCE);
+		JsonObject current = with_null.deepCopy();
+		GsonKit.jsonMerge(current, with_null, KeyValueNullContentMergeBehavior.KEEP);
+		assertEquals(with_null, current);
+		GsonKit.jsonMerge(current, with_null, KeyValueNullContentMergeBehavior.REMOVE);
+		assertEquals(0, current.get("sub").getAsJsonObject().size());
+	}
+	
+	public void testJsonMergeNumbers() {
+		JsonObject current = GsonKit.parser.parse("{\"id\":9007199254740993,\"v\":1,\"arr\":[9007199254740993]}").getAsJsonObject();
+		JsonObject newer = GsonKit.parser.parse("{\"id\":9007199254740992,\"v\":1.0,\"arr\":[9007199254740992]}").getAsJsonObject();
+		GsonKit.jsonMerge(current, newer, KeyValueNullContentMergeBehavior.KEEP);
+		assertEquals("9007199254740992", current.get("id").getAsString());
+		assertEquals("1.0", current.get("v").getAsString());
+		assertEquals("9007199254740992", current.get("arr").getAsJsonArray().get(0).getAsString());
+		
+		current.addProperty("v", 1);
+		GsonKit.jsonMerge(current, GsonKit.parser.parse("{\"v\":1}"), KeyValueNullContentMergeBehavior.KEEP);
+		assertEquals("1", current.get("v").getAsString());
+	}
+	
+	public void testJsonMergeDeepTree() {
+		JsonObject current = new JsonObject();
+		JsonObject newer = new JsonObject();
+		JsonObject current_leaf = current;
+		JsonObject newer_leaf = newer;
+		for (int pos = 0; pos < 100_000; pos++) {
+			JsonObject current_child = new JsonObject();
+			JsonObject newer_child = new JsonObject();
+			current_leaf.add("c", current_child);
+			newer_leaf.add("c", newer_child);
+			current_leaf = current_child;
+			newer_leaf = newer_child;
+		}
+		current_leaf.addProperty("value", 1);
+		newer_leaf.addProperty("value", 2);
+		newer_leaf.addProperty("added", 3);
+		
+		GsonKit.jsonMerge(current, newer, KeyValueNullContentMergeBehavior.KEEP);
+		assertEquals(2, current_leaf.get("value").getAsInt());
+		assertEquals(3, current_leaf.get("added").getAsInt());
+	}
+	
+	public void testStreamArray() throws Exception {
+		GsonKit gson_kit = new GsonKit();
+		gson_kit.registerDeserializer(Point.class, Point.class, json -> {
+			String[] values = json.getAsString().split(",");
+			Point result = new Point();
+			result.x = Integer.parseInt(values[0]);
+			result.y = Integer.parseInt(values[1]);
+			return result;
+		});
+		
+		String document = "{\"meta\":{\"rows\":[\"0,0\"]},\"export\":[{\"rows\":1},{\"rows\":[\"1,2\",\"3,4\"],\"after\":true}]}";
+		AtomicBoolean closed = new AtomicBoolean(false);
+		Reader reader = new StringReader(document) {
+			public void close() {
+				closed.set(true);
+				super.close();
+			}
+		};
+		try (Stream<Point> points = gson_kit.streamArray(reader, "/export/1/rows", Point.class)) {
+			assertEquals(Arrays.asList(2, 4), points.map(point -> point.y).collect(Collectors.toList()));
+		}
+		assertTrue(closed.get());
+		
+		try {
+			gson_kit.streamArray(new StringReader(document), "/export/2/rows", Point.class);
+			fail();
+		} catch (JsonParseException e) {
+		}
+		try {
+			gson_kit.streamArray(new StringReader(document), "/meta", Point.class);
+			fail();
+		} catch (JsonParseException e) {
+		}
+		
+		/**
+		 * Only the pulled items are read.
+		 */
+		Reader endless = new Reader() {
+			private int pos = -1;
+			
+			public int read(char[] cbuf, int off, int len) {
+				for (int i = 0; i < len; i++) {
+					cbuf[off + i] = pos == -1 ? '[' : "\"5,6\",".charAt(pos % 6);
+					pos++;
+				}
+				return len;
+			}
+			
+			public void close() {
+			}
+		};
+		assertEquals(3, gson_kit.streamArray(endless, "", Point.class).limit(3).filter(point -> point.x == 5).count());
+		
+		File json_file = File.createTempFile("points", ".json");
+		json_file.deleteOnExit();
+		FileUtils.write(json_file, "[\"7,8\"]", StandardCharsets.UTF_8);
+		try (Stream<Point> points = gson_kit.streamArray(json_file.toPath(), "", Point.class)) {
+			assertEquals(8, points.findFirst().get().y);
+		}
+	}
+	
 }
@@ -0,0 +1,145 @@
+/*
+ * This file is part of Divergent Framework Factory.
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ * 
+*/
+package tv.hd3g.divergentframework.factory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import tv.hd3g.divergentframework.factory.configuration.annotations.OnAfterInjectConfiguration;
+import tv.hd3g.divergentframework.factory.configuration.demo.SingleCar;
+
+/**
+ * Only for check constructor injection.
+ */
+class InjectedGarage {
+	
+	final SimpleInterface simple;
+	final Single single;
+	final SingleCar car;
+	
+	public InjectedGarage(SimpleInterface simple, Single single, SingleCar car) {
+		this.simple = simple;
+		this.single = single;
+		this.car = car;
+	}
+	
+	static class Cycle {
+		
+		public Cycle(CycleNext next) {
+		}
+		
+	}
+	
+	static class CycleNext {
+		
+		public CycleNext(Cycle cycle) {
+		}
+		
+	}
+	
+	static final AtomicReference<Factory> factory = new AtomicReference<>();
+	
+	@SingleInstance
+	static class SingleNested {
+		
+		final Single single;
+		final SingleSlow slow;
+		
+		public SingleNested() throws ReflectiveOperationException {
+			single = factory.get().create(Single.class);
+			slow = factory.get().create(SingleSlow.class);
+		}
+		
+	}
+	
+	@SingleInstance
+	static class SingleSlow {
+		
+		public SingleSlow() throws InterruptedException {
+			Thread.sleep(50);
+		}
+		
+	}
+	
+	@SingleInstance
+	static class SingleSelfCycle {
+		
+		public SingleSelfCycle() throws ReflectiveOperationException {
+			factory.get().create(SingleSelfCycle.class);
+		}
+		
+	}
+	
+	@SingleInstance(lazy = true)
+	interface LazyService {
+		
+		int getValue();
+		
+	}
+	
+	static class LazyServiceImpl implements LazyService {
+		
+		static final AtomicInteger created = new AtomicInteger(0);
+		
+		public LazyServiceImpl() {
+			created.incrementAndGet();
+		}
+		
+		public int getValue() {
+			return 42;
+		}
+		
+	}
+	
+	@SingleInstance
+	static class SingleWithDeps {
+		
+		final Single single;
+		final SingleSlow slow;
+		
+		public SingleWithDeps(Single single, SingleSlow slow) {
+			this.single = single;
+			this.slow = slow;
+		}
+		
+	}
+	
+	@ThreadInstance
+	static class PerThread {
+	}
+	
+	@PooledInstance(maxSize = 2, idleTimeout = 100, maxWait = 50, unit = TimeUnit.MILLISECONDS)
+	static class Pooled {
+	}
+	
+	public static class AnnotatedCallback {
+		
+		@OnAfterInjectConfiguration
+		public void onConfigured() {
+		}
+		
+	}
+	
+	public static class OverriddenCallback extends AnnotatedCallback {
+		
+		public void onConfigured() {
+		}
+		
+	}
+	
+}
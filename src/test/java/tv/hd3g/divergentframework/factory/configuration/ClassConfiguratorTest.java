@@ -17,11 +17,19 @@
 package tv.hd3g.divergentframework.factory.configuration;
 
 import java.awt.Point;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.UUID;
 
 import javax.mail.internet.InternetAddress;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -29,6 +37,7 @@ import com.google.gson.JsonObject;
 import junit.framework.TestCase;
 import tv.hd3g.divergentframework.factory.Factory;
 import tv.hd3g.divergentframework.factory.GsonKit;
+import tv.hd3g.divergentframework.factory.configuration.annotations.OnAfterInjectConfiguration;
 import tv.hd3g.divergentframework.factory.configuration.demo.SingleCar;
 import tv.hd3g.divergentframework.factory.configuration.demo.SingleCar.Wheel;
 import tv.hd3g.divergentframework.factory.configuration.demo.SingleCar.WheelType;
@@ -41,6 +50,7 @@ import tv.hd3g.divergentframework.factory.configuration.demo.TMainSub2;
 import tv.hd3g.divergentframework.factory.configuration.demo.TMainSub2.Sub2A;
 import tv.hd3g.divergentframework.factory.configuration.demo.TMainSub2.Sub2A.Sub2B;
 import tv.hd3g.divergentframework.factory.configuration.demo.TMainSub2.Sub2C;
+import tv.hd3g.divergentframework.factory.index.ComponentIndex;
 
 public class ClassConfiguratorTest extends TestCase {
 	
@@ -58,6 +68,34 @@ public class ClassConfiguratorTest extends TestCase {
 		assertTrue(cc.isClassIsBlacklisted(InternetAddress.class));
 	}
 	
+	/**
+	 * The index don't match the class annotations: it's ignored, and the class is scanned.
+	 */
+	public void testOutdatedComponentIndex() throws Exception {
+		File dir = Files.createTempDirectory("outdated-index").toFile();
+		File source = new File(dir, "Outdated.java");
+		FileUtils.write(source, "package outdated; public class Outdated { public String text; public int calls; @" + OnAfterInjectConfiguration.class.getName() + " public void onConfigured() { calls++; } }", "UTF-8");
+		assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-proc:none", "-cp", System.getProperty("java.class.path"), "-d", dir.getPath(), source.getPath()));
+		FileUtils.write(new File(dir, ComponentIndex.RESOURCE_NAME), "outdated.Outdated=callback:removedCallback\n", "UTF-8");
+		
+		try (URLClassLoader class_loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, ClassConfiguratorTest.class.getClassLoader())) {
+			Class<?> outdated_class = class_loader.loadClass("outdated.Outdated");
+			assertEquals(Arrays.asList("removedCallback"), ComponentIndex.get(outdated_class).getOnAfterInjectConfigurationMethodNames(outdated_class));
+			
+			Object instance = outdated_class.getConstructor().newInstance();
+			JsonObject conf_tree = new JsonObject();
+			conf_tree.addProperty("text", "value");
+			new ClassConfigurator(gson_kit, c -> {
+				return null;
+			}).configureNewObjectWithJson(outdated_class, instance, conf_tree);
+			
+			assertEquals("value", outdated_class.getField("text").get(instance));
+			assertEquals(1, outdated_class.getField("calls").getInt(instance));
+			ComponentIndex.forget(class_loader);
+		}
+		FileUtils.forceDelete(dir);
+	}
+	
 	public void testSimple() {
 		ClassConfigurator cc = new ClassConfigurator(gson_kit, c -> {
 			try {
@@ -16,6 +16,9 @@
 */
 package tv.hd3g.divergentframework.factory.configuration;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 import com.google.gson.JsonObject;
 
 import junit.framework.TestCase;
@@ -50,6 +53,19 @@ public class ConfiguredClassTest extends TestCase {
 		
 		assertEquals("blue", car1.getColor());
 		assertEquals(1.0f, car1.getSize());
+		assertEquals(2, c_class.getInstanceCount());
+		
+		/**
+		 * Like from createAsync and createMany
+		 */
+		IntStream.range(0, 1000).parallel().forEach(i -> {
+			if (i % 2 == 0) {
+				c_class.setupInstance(new SingleCar());
+			} else {
+				c_class.setupInstances(Arrays.asList(new SingleCar(), new SingleCar()));
+			}
+		});
+		assertEquals(2 + 500 + 1000, c_class.getInstanceCount());
 	}
 	
 }
@@ -16,19 +16,25 @@
 */
 package tv.hd3g.divergentframework.factory.js;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import javax.script.ScriptException;
 
+import org.apache.commons.io.FileUtils;
+
 import junit.framework.TestCase;
 
 public class JsToolkitTest extends TestCase {
@@ -119,4 +125,59 @@ public class JsToolkitTest extends TestCase {
 		assertEquals("Static string var", d_i.formStaticJS());
 	}
 	
+	public void testScriptCache() throws IOException, ScriptException {
+		JsToolkit js = new JsToolkit();
+		JsScriptCache cache = new JsScriptCache(js).setRevalidationPeriod(0, TimeUnit.MILLISECONDS);
+		
+		File js_file = File.createTempFile("js-script-cache", ".js");
+		js_file.deleteOnExit();
+		FileUtils.write(js_file, "var counter = 0;\n({ stringSupplier: function() { counter++; return \"v1-\" + counter; } })", StandardCharsets.UTF_8);
+		
+		DynamicInterface d_i1 = cache.instanceTypeFromJs(DynamicInterface.class, js_file, false);
+		DynamicInterface d_i2 = cache.instanceTypeFromJs(DynamicInterface.class, js_file, false);
+		assertEquals(1, cache.size());
+		assertEquals("v1-1", d_i1.stringSupplier());
+		assertEquals("v1-2", d_i2.stringSupplier());
+		
+		FileUtils.write(js_file, "({ stringSupplier: function() { return \"v2\"; } })", StandardCharsets.UTF_8);
+		js_file.setLastModified(js_file.lastModified() + 2000);
+		
+		DynamicInterface d_i3 = cache.instanceTypeFromJs(DynamicInterface.class, js_file, false);
+		assertEquals("v2", d_i3.stringSupplier());
+		assertEquals("v1-3", d_i1.stringSupplier());
+		
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+	
+	public void testScriptCacheUrlError() throws IOException, ScriptException {
+		JsToolkit js = new JsToolkit();
+		JsScriptCache cache = new JsScriptCache(js);
+		assertEquals(1, cache.getUrlRevalidationPeriod(TimeUnit.MINUTES));
+		
+		File js_file = File.createTempFile("js-script-cache", ".js");
+		js_file.deleteOnExit();
+		FileUtils.write(js_file, "\"not an object\"", StandardCharsets.UTF_8);
+		URL js_url = js_file.toURI().toURL();
+		
+		/**
+		 * The same invalid content is evaluated again, without a NullPointerException.
+		 */
+		for (int pos = 0; pos < 2; pos++) {
+			try {
+				cache.instanceTypeFromJs(DynamicInterface.class, js_url, false);
+				fail();
+			} catch (ScriptException e) {
+			}
+		}
+		
+		FileUtils.write(js_file, "({ stringSupplier: function() { return \"v2\"; } })", StandardCharsets.UTF_8);
+		assertEquals("v2", cache.instanceTypeFromJs(DynamicInterface.class, js_url, false).stringSupplier());
+		
+		FileUtils.write(js_file, "({ stringSupplier: function() { return \"v3\"; } })", StandardCharsets.UTF_8);
+		assertEquals("v2", cache.instanceTypeFromJs(DynamicInterface.class, js_url, false).stringSupplier());
+		cache.setUrlRevalidationPeriod(0, TimeUnit.MILLISECONDS);
+		assertEquals("v3", cache.instanceTypeFromJs(DynamicInterface.class, js_url, false).stringSupplier());
+	}
+	
 }
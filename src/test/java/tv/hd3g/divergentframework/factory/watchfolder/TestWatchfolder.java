@@ -21,7 +21,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -230,6 +232,53 @@ public class TestWatchfolder extends TestCase {
 		FileUtils.forceDelete(observed_directory);
 	}
 	
+	private static File createTree(int dir_count, int sub_dir_count) throws IOException {
+		File observed_directory = Files.createTempDirectory("test-watchfolder").toFile().getCanonicalFile();
+		for (int pos = 0; pos < dir_count; pos++) {
+			for (int pos_sub = 0; pos_sub < sub_dir_count; pos_sub++) {
+				createUpdateFile(observed_directory, "dir" + pos + File.separator + "sub" + pos_sub + File.separator + "file.txt");
+			}
+		}
+		return observed_directory;
+	}
+	
+	/**
+	 * The first scan of a directory push its sub directories.
+	 */
+	public void testNestedSubDirectories() throws Exception {
+		File observed_directory = createTree(20, 10);
+		
+		CountDownLatch detected = new CountDownLatch(20 * 10);
+		WatchFolder wf = new WatchFolder().setObservedDirectory(observed_directory).setFileDetectionTime(1, TimeUnit.MILLISECONDS).setScanPeriod(10, TimeUnit.MILLISECONDS);
+		wf.registerCallback((root, activity_on_file, kind, detected_by) -> {
+			if (kind == EventKind.CREATE && activity_on_file.isFile()) {
+				detected.countDown();
+			}
+		});
+		
+		assertTrue(detected.await(30, TimeUnit.SECONDS));
+		wf.close();
+		FileUtils.forceDelete(observed_directory);
+	}
+	
+	/**
+	 * The scans running during close don't schedule a next scan.
+	 */
+	public void testCloseDuringScan() throws Exception {
+		File observed_directory = createTree(20, 10);
+		
+		WatchFolder wf = new WatchFolder().setObservedDirectory(observed_directory).setFileDetectionTime(1, TimeUnit.MILLISECONDS).setScanPeriod(1, TimeUnit.MILLISECONDS);
+		wf.registerCallback((root, activity_on_file, kind, detected_by) -> {
+		});
+		Thread.sleep(20);
+		wf.close();
+		assertTrue(wf.isClosed());
+		
+		Thread.sleep(200);
+		assertTrue(((ScheduledThreadPoolExecutor) wf.getScheduledService()).getQueue().isEmpty());
+		FileUtils.forceDelete(observed_directory);
+	}
+	
 	public void testGrowingFile() throws Exception {
 		File observed_directory = Files.createTempDirectory("test-watchfolder").toFile().getCanonicalFile();
 		
@@ -340,7 +389,7 @@ public class TestWatchfolder extends TestCase {
 		WatchFolder wf;
 		/*
 		 * Simple JS injection
-		 
+		
 		wf = f.createGsonKit().getGson().fromJson(js_conf_test_wf, WatchFolder.class);
 		
 		assertEquals(observed_directory, wf.getObservedDirectory());